@@ -28,6 +28,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.support.v7.app.AlertDialog;
+import android.text.format.DateUtils;
 import android.view.HapticFeedbackConstants;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -94,6 +95,7 @@ public class PnrRowAdapter extends BaseAdapter {
 			holder = new ViewHolder();
 			holder.txtName =  convertView.findViewById(R.id.pnr_number);
 			holder.txtStatus =  convertView.findViewById(R.id.pnr_status);
+			holder.txtAge =  convertView.findViewById(R.id.extra_info);
 			holder.btnCheck =  convertView.findViewById(R.id.check_status);
 			holder.btnDelete =  convertView.findViewById(R.id.delete_status);
 			holder.btnInfo =  convertView.findViewById(R.id.more_info);
@@ -129,11 +131,13 @@ public class PnrRowAdapter extends BaseAdapter {
 			} else {
 				holder.txtStatus.setText(currentStatus);
 			}
+			holder.txtAge.setText(getAgeText(arrayList.get(position).getLastUpdated()));
 		} else {
 			// Disable the Extra Info Button
 			holder.btnInfo.setEnabled(false);
 			// Clear the status as well
 			holder.txtStatus.setText("");
+			holder.txtAge.setText("");
 		}
 
 		// Get the PNRStatusVo object
@@ -145,7 +149,7 @@ public class PnrRowAdapter extends BaseAdapter {
 			@Override
 			public void onClick(View v) {
 				v.performHapticFeedback(HapticFeedbackConstants.VIRTUAL_KEY);
-				holder.txtStatus.setText("");
+				// The current status stays till the new one is found
 				parentFragment.checkStatus(pnrStatusVo);
 			}
 		});
@@ -198,9 +202,22 @@ public class PnrRowAdapter extends BaseAdapter {
 		return convertView;
 	}
 
+	/**
+	 * Returns how long ago the status was found, like "Updated 5 minutes ago"
+	 */
+	private String getAgeText(long lastUpdated) {
+		if (lastUpdated <= 0) {
+			return "";
+		}
+		CharSequence age = DateUtils.getRelativeTimeSpanString(lastUpdated, System.currentTimeMillis(),
+				DateUtils.MINUTE_IN_MILLIS);
+		return context.getString(R.string.str_status_last_updated, age);
+	}
+
 	private static class ViewHolder {
 		TextView	txtName;
 		TextView	txtStatus;
+		TextView	txtAge;
 		ImageButton	btnCheck;
 		ImageButton	btnDelete;
 		ImageButton	btnInfo;
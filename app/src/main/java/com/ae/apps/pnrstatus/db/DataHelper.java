@@ -43,17 +43,22 @@ import com.ae.apps.pnrstatus.utils.Logger;
 public class DataHelper {
 
 	/* DataBase information */
-	private static final int	DATABASE_VERSION		= 2;
+	private static final int	DATABASE_VERSION		= 3;
 	private static final String	DATABASE_NAME			= "ApplicationData";
 
 	/* Table names */
 	private static final String	TABLE_PNR				= "DataTable";
 	private static final String	TABLE_REMINDERS			= "Reminders";
+	private static final String	TABLE_STATUS_CACHE		= "StatusCache";
 
 	/* Table Keys */
 	public static final String	KEY_ID					= "_id";
 	public static final String	KEY_DATA1				= "data1";
 	public static final String	KEY_DATA2				= "data2";
+	public static final String	KEY_PNR_NUMBER			= "pnr_number";
+	public static final String	KEY_STATUS				= "status";
+	public static final String	KEY_CACHED_AT			= "cached_at";
+	public static final String	KEY_EXPIRES_AT			= "expires_at";
 
 	/* Table creation code */
 
@@ -65,6 +70,11 @@ public class DataHelper {
 	private static final String	REMINDER_TABLE_CREATE	= "CREATE TABLE " + TABLE_REMINDERS + " (" + KEY_ID
 																+ " INTEGER PRIMARY KEY AUTOINCREMENT, " + KEY_DATA1
 																+ " TEXT NOT NULL," + KEY_DATA2 + " TEXT);";
+	/* pnrnumber, serialized PNRStatusVo, time it was found, time till which it is fresh */
+	private static final String	STATUS_CACHE_TABLE_CREATE	= "CREATE TABLE " + TABLE_STATUS_CACHE + " ("
+																+ KEY_PNR_NUMBER + " TEXT PRIMARY KEY, " + KEY_STATUS
+																+ " BLOB NOT NULL, " + KEY_CACHED_AT + " INTEGER, "
+																+ KEY_EXPIRES_AT + " INTEGER);";
 
 	private OpenHelper			mDbHelper;
 	private SQLiteDatabase		mDatabase;
@@ -160,6 +170,46 @@ public class DataHelper {
 
 	}
 
+	/**
+	 * Stores the last status found for a pnr, replacing the one stored earlier
+	 * 
+	 * @param pnrNumber pnr number
+	 * @param status the serialized PNRStatusVo
+	 * @param cachedAt time the status was found
+	 * @param expiresAt time till which the status is fresh
+	 * @return the row id, -1 if failed
+	 */
+	public long saveCachedStatus(String pnrNumber, byte[] status, long cachedAt, long expiresAt) {
+		ContentValues values = new ContentValues();
+		values.put(KEY_PNR_NUMBER, pnrNumber);
+		values.put(KEY_STATUS, status);
+		values.put(KEY_CACHED_AT, cachedAt);
+		values.put(KEY_EXPIRES_AT, expiresAt);
+
+		return mDatabase.insertWithOnConflict(TABLE_STATUS_CACHE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+	}
+
+	/**
+	 * Fetch the stored status of a pnr
+	 * 
+	 * @param pnrNumber pnr number
+	 * @return Cursor with the status, cached at and expires at columns, empty if there is none
+	 */
+	public Cursor fetchCachedStatus(String pnrNumber) {
+		return mDatabase.query(TABLE_STATUS_CACHE, new String[] { KEY_STATUS, KEY_CACHED_AT, KEY_EXPIRES_AT },
+				KEY_PNR_NUMBER + "=?", new String[] { pnrNumber }, null, null, null);
+	}
+
+	/**
+	 * Delete the stored status of a pnr
+	 * 
+	 * @param pnrNumber pnr number
+	 * @return true if a status was deleted
+	 */
+	public boolean deleteCachedStatus(String pnrNumber) {
+		return mDatabase.delete(TABLE_STATUS_CACHE, KEY_PNR_NUMBER + "=?", new String[] { pnrNumber }) > 0;
+	}
+
 	/**
 	 * Helper class that extends the SQLiteOpenHelper class to do database operations
 	 */
@@ -173,15 +223,24 @@ public class DataHelper {
 		public void onCreate(SQLiteDatabase db) {
 			db.execSQL(PNR_TABLE_CREATE);
 			db.execSQL(REMINDER_TABLE_CREATE);
+			db.execSQL(STATUS_CACHE_TABLE_CREATE);
 		}
 
 		@Override
 		public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-			Logger.w(AppConstants.TAG, "Upgrading database from version " + oldVersion + " to " + newVersion
-					+ ", which will destroy all old data");
-			db.execSQL("DROP TABLE IF EXISTS " + TABLE_PNR);
-			db.execSQL("DROP TABLE IF EXISTS " + TABLE_REMINDERS);
-			onCreate(db);
+			if (oldVersion < 2) {
+				Logger.w(AppConstants.TAG, "Upgrading database from version " + oldVersion + " to " + newVersion
+						+ ", which will destroy all old data");
+				db.execSQL("DROP TABLE IF EXISTS " + TABLE_PNR);
+				db.execSQL("DROP TABLE IF EXISTS " + TABLE_REMINDERS);
+				onCreate(db);
+				return;
+			}
+			// Only adds tables from here on, the saved pnr numbers are kept
+			Logger.i(AppConstants.TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
+			if (oldVersion < 3) {
+				db.execSQL(STATUS_CACHE_TABLE_CREATE);
+			}
 		}
 
 	}
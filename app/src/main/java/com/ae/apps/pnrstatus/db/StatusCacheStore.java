@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+
+import com.ae.apps.pnrstatus.service.strategy.StatusCache;
+import com.ae.apps.pnrstatus.utils.AppConstants;
+import com.ae.apps.pnrstatus.utils.Logger;
+import com.ae.apps.pnrstatus.utils.Serializer;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+/**
+ * Keeps the statuses of the StatusCache in the device database so that they survive an app restart
+ * 
+ * @author Midhun
+ */
+public class StatusCacheStore implements StatusCache.Store {
+
+	private final Context	mContext;
+	private DataHelper		mDbHelper;
+
+	public StatusCacheStore(Context context) {
+		this.mContext = context.getApplicationContext();
+	}
+
+	@Override
+	public synchronized StatusCache.Entry load(String pnrNumber) {
+		DataHelper dbHelper = getDbHelper();
+		if (null == dbHelper) {
+			return null;
+		}
+		Cursor cursor = dbHelper.fetchCachedStatus(pnrNumber);
+		try {
+			if (!cursor.moveToFirst()) {
+				return null;
+			}
+			Object statusVo = Serializer.deserializeObject(cursor.getBlob(0));
+			if (!(statusVo instanceof PNRStatusVo)) {
+				// Stored by an older version of the app, look it up again
+				dbHelper.deleteCachedStatus(pnrNumber);
+				return null;
+			}
+			return new StatusCache.Entry((PNRStatusVo) statusVo, cursor.getLong(1), cursor.getLong(2));
+		} finally {
+			cursor.close();
+		}
+	}
+
+	@Override
+	public synchronized void save(String pnrNumber, StatusCache.Entry entry) {
+		DataHelper dbHelper = getDbHelper();
+		byte[] status = Serializer.serializeObject(entry.getStatusVo());
+		if (null != dbHelper && null != status) {
+			dbHelper.saveCachedStatus(pnrNumber, status, entry.getCachedAt(), entry.getExpiresAt());
+		}
+	}
+
+	@Override
+	public synchronized void remove(String pnrNumber) {
+		DataHelper dbHelper = getDbHelper();
+		if (null != dbHelper) {
+			dbHelper.deleteCachedStatus(pnrNumber);
+		}
+	}
+
+	private DataHelper getDbHelper() {
+		if (null == mDbHelper) {
+			try {
+				mDbHelper = new DataHelper(mContext).open();
+			} catch (SQLException e) {
+				Logger.e(AppConstants.TAG, "Unable to open the status cache", e);
+			}
+		}
+		return mDbHelper;
+	}
+}
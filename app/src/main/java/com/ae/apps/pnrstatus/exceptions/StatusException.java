@@ -34,8 +34,11 @@ public class StatusException extends Exception {
 
 	private static final long	serialVersionUID	= 4678860372933762653L;
 
+	/**
+	 * CANCELLED is for lookups that the app stopped itself, they say nothing about the provider
+	 */
 	public enum ErrorCodes {
-		PARSE_ERROR, NETWORK_ERROR, EMPTY_RESPONSE, URL_ERROR
+		PARSE_ERROR, NETWORK_ERROR, EMPTY_RESPONSE, URL_ERROR, SERVICE_UNAVAILABLE, TIMEOUT, CANCELLED
 	}
 
 	private ErrorCodes	errorCode;
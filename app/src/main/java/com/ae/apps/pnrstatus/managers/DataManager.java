@@ -29,10 +29,13 @@ import android.support.v7.app.AppCompatActivity;
 import android.widget.BaseAdapter;
 
 import com.ae.apps.pnrstatus.db.DataHelper;
+import com.ae.apps.pnrstatus.service.strategy.LookupExecutor;
+import com.ae.apps.pnrstatus.service.strategy.StatusCache;
 import com.ae.apps.pnrstatus.utils.Logger;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Does the operation on the device Database with the help of DataHelper
@@ -49,6 +52,17 @@ public class DataManager {
 
 	private static final String		TAG	= "PNR_DataManager";
 
+	/**
+	 * Interface to be notified once the last known statuses are shown
+	 */
+	public interface OnStatusesRestoredListener {
+
+		/**
+		 * @param staleStatuses the restored statuses that are no longer fresh and should be looked up again
+		 */
+		void onStatusesRestored(List<PNRStatusVo> staleStatuses);
+	}
+
 	public DataManager(AppCompatActivity activity) {
 		this.activity = activity;
 
@@ -85,6 +99,80 @@ public class DataManager {
 		}
 	}
 
+	/**
+	 * Shows the last known status of each pnr, so that the list does not stay empty till a lookup finishes. The
+	 * statuses are read from the StatusCache off the main thread.
+	 * 
+	 * @param listener notified on the main thread once the statuses are shown
+	 */
+	public void restoreLastKnownStatuses(final OnStatusesRestoredListener listener) {
+		final List<String> pnrNumbers = new ArrayList<String>();
+		for (PNRStatusVo statusVo : dataList) {
+			pnrNumbers.add(statusVo.getPnrNumber());
+		}
+
+		LookupExecutor.getExecutor().execute(new Runnable() {
+
+			@Override
+			public void run() {
+				final List<PNRStatusVo> restored = new ArrayList<PNRStatusVo>();
+				final List<PNRStatusVo> stale = new ArrayList<PNRStatusVo>();
+				long now = System.currentTimeMillis();
+				for (String pnrNumber : pnrNumbers) {
+					StatusCache.Entry entry = StatusCache.getEntry(pnrNumber);
+					if (null == entry) {
+						continue;
+					}
+					PNRStatusVo statusVo = entry.getStatusVo();
+					statusVo.setPnrNumber(pnrNumber);
+					if (statusVo.getLastUpdated() == 0) {
+						statusVo.setLastUpdated(entry.getCachedAt());
+					}
+					restored.add(statusVo);
+					if (!entry.isFresh(now)) {
+						stale.add(statusVo);
+					}
+				}
+
+				activity.runOnUiThread(new Runnable() {
+
+					@Override
+					public void run() {
+						boolean isUpdated = false;
+						for (PNRStatusVo statusVo : restored) {
+							isUpdated |= restore(dataList, statusVo);
+						}
+						if (isUpdated && adapter != null) {
+							adapter.notifyDataSetChanged();
+						}
+						listener.onStatusesRestored(stale);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Puts the restored status in the list, unless a newer one was found in the meantime
+	 * 
+	 * @return true if the list was changed
+	 */
+	static boolean restore(List<PNRStatusVo> dataList, PNRStatusVo statusVo) {
+		for (int i = 0; i < dataList.size(); i++) {
+			PNRStatusVo pnrStatusVo = dataList.get(i);
+			if (pnrStatusVo.getPnrNumber().equals(statusVo.getPnrNumber())) {
+				if (pnrStatusVo.getLastUpdated() >= statusVo.getLastUpdated()) {
+					return false;
+				}
+				// The cached status has no row id, it is needed to delete the pnr later
+				statusVo.setRowId(pnrStatusVo.getRowId());
+				dataList.set(i, statusVo);
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Returns the list of data
 	 * 
@@ -108,6 +196,7 @@ public class DataManager {
 			if (pnrNumber.equals(pnrNumber2)) {
 				// Delete from the database
 				mDbHelper.deletePnrNumber(pnrStatusVo.getRowId());
+				StatusCache.invalidate(pnrNumber);
 				dataList.remove(i);
 				removed = true;
 				break;
@@ -157,6 +246,8 @@ public class DataManager {
 			String pnrNumber = pnrStatusVo.getPnrNumber();
 			String pnrNumber2 = statusVo.getPnrNumber();
 			if (pnrNumber.equals(pnrNumber2)) {
+				// Keep the row id, it is needed to delete the pnr later
+				statusVo.setRowId(pnrStatusVo.getRowId());
 				dataList.set(i, statusVo);
 				isUpdated = true;
 				// Notifiy the adapter
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.managers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the pnr checks that were asked for while the device was offline, so that they can be made once the network
+ * is back. The queue lives in its own SharedPreferences file and survives a restart of the app. A pnr is queued only
+ * once however many times it was checked.
+ *
+ * @author Midhun
+ */
+public class PendingRequestManager {
+
+    private static final String PREFS_NAME = "pending_requests";
+    private static final String KEY_PNR_NUMBERS = "pnr_numbers";
+
+    /**
+     * Where the queue is kept
+     */
+    interface Store {
+
+        /**
+         * @return the queued pnr numbers, which the caller may modify
+         */
+        Set<String> read();
+
+        void write(Set<String> pnrNumbers);
+    }
+
+    private final Store mStore;
+
+    public PendingRequestManager(final Context context) {
+        this(new PreferencesStore(context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)));
+    }
+
+    PendingRequestManager(final Store store) {
+        mStore = store;
+    }
+
+    /**
+     * Queues a check of the pnr
+     *
+     * @param pnrNumber the pnr number
+     * @return false if the pnr was queued already
+     */
+    public synchronized boolean add(final String pnrNumber) {
+        Set<String> pnrNumbers = mStore.read();
+        boolean added = pnrNumbers.add(pnrNumber);
+        if (added) {
+            mStore.write(pnrNumbers);
+        }
+        return added;
+    }
+
+    /**
+     * Drops the queued check of the pnr, if any
+     *
+     * @param pnrNumber the pnr number
+     */
+    public synchronized void remove(final String pnrNumber) {
+        Set<String> pnrNumbers = mStore.read();
+        if (pnrNumbers.remove(pnrNumber)) {
+            mStore.write(pnrNumbers);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return mStore.read().isEmpty();
+    }
+
+    /**
+     * Empties the queue
+     *
+     * @return the pnr numbers that were queued
+     */
+    public synchronized List<String> takeAll() {
+        Set<String> pnrNumbers = mStore.read();
+        if (!pnrNumbers.isEmpty()) {
+            mStore.write(new HashSet<String>());
+        }
+        return new ArrayList<String>(pnrNumbers);
+    }
+
+    /**
+     * Hands out the queued checks once the device is back online, they stay queued while it is offline
+     *
+     * @param online true if the network is available
+     * @return the pnr numbers to check now
+     */
+    public synchronized List<String> onConnectivityChanged(final boolean online) {
+        if (!online) {
+            return new ArrayList<String>();
+        }
+        return takeAll();
+    }
+
+    /**
+     * Keeps the queue in a SharedPreferences file
+     */
+    private static class PreferencesStore implements Store {
+        private final SharedPreferences mPreferences;
+
+        PreferencesStore(final SharedPreferences preferences) {
+            mPreferences = preferences;
+        }
+
+        @Override
+        public Set<String> read() {
+            // The set returned by the preferences must not be modified
+            return new HashSet<String>(mPreferences.getStringSet(KEY_PNR_NUMBERS, new HashSet<String>()));
+        }
+
+        @Override
+        public void write(final Set<String> pnrNumbers) {
+            mPreferences.edit().putStringSet(KEY_PNR_NUMBERS, pnrNumbers).apply();
+        }
+    }
+}
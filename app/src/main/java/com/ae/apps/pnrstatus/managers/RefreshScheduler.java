@@ -0,0 +1,263 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.managers;
+
+import android.os.Handler;
+
+import com.ae.apps.pnrstatus.utils.AppConstants;
+import com.ae.apps.pnrstatus.utils.PNRUtils;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when each pnr is to be checked again, so that the tickets that may still change are kept fresh without
+ * checking the others. A waitlisted ticket close to departure is checked often, a confirmed one rarely, and one whose
+ * chart is prepared or whose journey is over is not checked at all. A ticket that keeps its status is checked less
+ * often over time, one that moved is checked sooner.
+ *
+ * The schedule is kept in memory and ticks on the main thread while started.
+ *
+ * @author Midhun
+ */
+public class RefreshScheduler {
+
+    /**
+     * Notified on the main thread with the pnrs that are due for a check
+     */
+    public interface Listener {
+        void onRefreshDue(List<String> pnrNumbers);
+    }
+
+    /**
+     * The interval of a pnr that is not to be checked again
+     */
+    public static final long NEVER = -1;
+
+    private static final long ONE_DAY_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long TICK_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    static final long MIN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(15);
+    static final long UNKNOWN_DATE_INTERVAL_MS = TimeUnit.HOURS.toMillis(6);
+    static final long CONFIRMED_INTERVAL_MS = TimeUnit.HOURS.toMillis(24);
+    static final long CONFIRMED_NEAR_DEPARTURE_INTERVAL_MS = TimeUnit.HOURS.toMillis(3);
+    static final long WAITING_INTERVAL_MS = TimeUnit.HOURS.toMillis(12);
+    static final long WAITING_WITHIN_WEEK_INTERVAL_MS = TimeUnit.HOURS.toMillis(6);
+    static final long WAITING_WITHIN_DAYS_INTERVAL_MS = TimeUnit.HOURS.toMillis(2);
+    static final long WAITING_WITHIN_DAY_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
+    static final long WAITING_NEAR_DEPARTURE_INTERVAL_MS = MIN_INTERVAL_MS;
+
+    private static final int WAITING_WITHIN_WEEK_DAYS = 7;
+    private static final int WAITING_WITHIN_DAYS = 3;
+    private static final long NEAR_DEPARTURE_MS = TimeUnit.HOURS.toMillis(6);
+
+    /**
+     * An unchanged status stretches the interval up to this many times
+     */
+    private static final int MAX_BACKOFF = 4;
+
+    /**
+     * What is known of a pnr from its last check
+     */
+    private static class Schedule {
+        String mLastStatus;
+        int mUnchangedChecks;
+        long mIntervalMs;
+        long mDueAt;
+    }
+
+    private final Map<String, Schedule> mSchedules = new HashMap<String, Schedule>();
+    private final Listener mListener;
+    private Handler mHandler;
+    private boolean mStarted;
+
+    private final Runnable mTicker = new Runnable() {
+        @Override
+        public void run() {
+            List<String> duePnrNumbers = takeDue(now());
+            if (!duePnrNumbers.isEmpty()) {
+                mListener.onRefreshDue(duePnrNumbers);
+            }
+            if (mStarted) {
+                mHandler.postDelayed(this, TICK_INTERVAL_MS);
+            }
+        }
+    };
+
+    public RefreshScheduler(final Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Starts checking for the pnrs that are due, right away and then every minute
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        if (null == mHandler) {
+            mHandler = new Handler();
+        }
+        mStarted = true;
+        mHandler.post(mTicker);
+    }
+
+    public void stop() {
+        mStarted = false;
+        if (null != mHandler) {
+            mHandler.removeCallbacks(mTicker);
+        }
+    }
+
+    /**
+     * Schedules the next check of the pnr from the status just found for it
+     *
+     * @param statusVo the status
+     */
+    public void schedule(final PNRStatusVo statusVo) {
+        String pnrNumber = statusVo.getPnrNumber();
+        if (null == pnrNumber) {
+            return;
+        }
+        long now = now();
+        long checkedAt = statusVo.getLastUpdated() > 0 ? statusVo.getLastUpdated() : now;
+
+        Schedule schedule = mSchedules.get(pnrNumber);
+        boolean moved = false;
+        if (null == schedule) {
+            schedule = new Schedule();
+        } else if (null != schedule.mLastStatus && schedule.mLastStatus.equals(statusVo.getCurrentStatus())) {
+            schedule.mUnchangedChecks++;
+        } else {
+            moved = null != schedule.mLastStatus;
+            schedule.mUnchangedChecks = 0;
+        }
+        schedule.mLastStatus = statusVo.getCurrentStatus();
+
+        long intervalMs = getRefreshIntervalMs(statusVo, now, schedule.mUnchangedChecks, moved);
+        if (NEVER == intervalMs) {
+            mSchedules.remove(pnrNumber);
+            return;
+        }
+        schedule.mIntervalMs = intervalMs;
+        schedule.mDueAt = checkedAt + intervalMs;
+        mSchedules.put(pnrNumber, schedule);
+    }
+
+    /**
+     * Stops checking the pnr
+     *
+     * @param pnrNumber the pnr number
+     */
+    public void remove(final String pnrNumber) {
+        mSchedules.remove(pnrNumber);
+    }
+
+    /**
+     * Returns the pnrs that are due. Each of them is due again after its interval, in case its check fails.
+     *
+     * @param now the current time in milliseconds
+     * @return the pnrs to be checked now
+     */
+    List<String> takeDue(final long now) {
+        List<String> duePnrNumbers = new ArrayList<String>();
+        for (Map.Entry<String, Schedule> entry : mSchedules.entrySet()) {
+            Schedule schedule = entry.getValue();
+            if (schedule.mDueAt <= now) {
+                duePnrNumbers.add(entry.getKey());
+                schedule.mDueAt = now + schedule.mIntervalMs;
+            }
+        }
+        return duePnrNumbers;
+    }
+
+    /**
+     * @return the current time in milliseconds
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns how long to wait before checking the pnr again
+     *
+     * @param statusVo        the last status of the pnr
+     * @param now             the current time in milliseconds
+     * @param unchangedChecks the number of checks in a row that found the same status
+     * @param moved           true if the last check found a different status than the one before
+     * @return the interval in milliseconds, NEVER if the status can not change anymore
+     */
+    static long getRefreshIntervalMs(final PNRStatusVo statusVo, final long now, final int unchangedChecks,
+                                     final boolean moved) {
+        long journeyTime = statusVo.getJourneyDateTimeStamp() > 0 ? statusVo.getJourneyDateTimeStamp()
+                : PNRUtils.getJourneyTimeStamp(statusVo.getTrainJourneyDate());
+        if (journeyTime > 0 && journeyTime + ONE_DAY_MS <= now) {
+            // The journey is over
+            return NEVER;
+        }
+        if (PNRUtils.isChartPrepared(statusVo.getChartStatus())) {
+            // The berths are final once the chart is prepared
+            return NEVER;
+        }
+        String statusClass = PNRUtils.getStatusClass(statusVo.getCurrentStatus());
+        if (null == statusClass) {
+            // Nothing known to decide on, left to the user
+            return NEVER;
+        }
+
+        long intervalMs;
+        long timeToJourney = journeyTime - now;
+        if (journeyTime <= 0) {
+            intervalMs = UNKNOWN_DATE_INTERVAL_MS;
+        } else if (AppConstants.STATUS_CNF.equals(statusClass)) {
+            intervalMs = timeToJourney > ONE_DAY_MS ? CONFIRMED_INTERVAL_MS : CONFIRMED_NEAR_DEPARTURE_INTERVAL_MS;
+        } else if (timeToJourney <= NEAR_DEPARTURE_MS) {
+            intervalMs = WAITING_NEAR_DEPARTURE_INTERVAL_MS;
+        } else if (timeToJourney <= ONE_DAY_MS) {
+            intervalMs = WAITING_WITHIN_DAY_INTERVAL_MS;
+        } else if (timeToJourney <= WAITING_WITHIN_DAYS * ONE_DAY_MS) {
+            intervalMs = WAITING_WITHIN_DAYS_INTERVAL_MS;
+        } else if (timeToJourney <= WAITING_WITHIN_WEEK_DAYS * ONE_DAY_MS) {
+            intervalMs = WAITING_WITHIN_WEEK_INTERVAL_MS;
+        } else {
+            intervalMs = WAITING_INTERVAL_MS;
+        }
+
+        if (moved) {
+            // A ticket that is moving is likely to move again soon
+            intervalMs = intervalMs / 2;
+        } else if (unchangedChecks > 0) {
+            intervalMs = intervalMs * Math.min(unchangedChecks + 1, MAX_BACKOFF);
+        }
+        if (journeyTime > 0 && !AppConstants.STATUS_CNF.equals(statusClass)) {
+            // Do not sleep past the departure of a ticket that is still waiting
+            intervalMs = Math.min(intervalMs, Math.max(timeToJourney, MIN_INTERVAL_MS));
+        }
+        return Math.max(intervalMs, MIN_INTERVAL_MS);
+    }
+}
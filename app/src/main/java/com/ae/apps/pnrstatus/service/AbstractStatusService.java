@@ -0,0 +1,287 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.service.network.RequestTemplate;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
+import com.ae.apps.pnrstatus.service.strategy.LookupExecutor;
+import com.ae.apps.pnrstatus.service.strategy.LookupTask;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+import com.ae.apps.pnrstatus.vo.StatusResultVo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+/**
+ * Base for the status services, looks up a batch of pnrs by running single lookups side by side. An async lookup
+ * runs the blocking lookup on the lookup pool, unless the provider can send its request without blocking.
+ *
+ * @author Midhun
+ */
+public abstract class AbstractStatusService implements IStatusService {
+
+    /**
+     * Lookups of a batch that run at the same time
+     */
+    private static final int MAX_PARALLEL_LOOKUPS = 4;
+
+    /**
+     * A repeated lookup of the same pnr within this time is answered from the response cache
+     */
+    protected static final long RESPONSE_CACHE_TTL_MS = 2 * 60 * 1000;
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber) {
+        return getResponseAsync(pnrNumber, false);
+    }
+
+    /**
+     * With a provider that has an AsyncRequest, no thread waits for the network. The response is parsed on the
+     * compute pool, so that the http threads are not held up by it.
+     */
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        final StatusFuture future = new StatusFuture();
+        final AsyncRequest asyncRequest = Boolean.TRUE.equals(stubResponse) ? null : getAsyncRequest();
+        Cancellable request;
+        if (null != asyncRequest) {
+            request = asyncRequest.enqueue(pnrNumber, future, new NetworkService.ResponseCallback() {
+                @Override
+                public void onResponse(final String response) {
+                    LookupExecutor.getComputeExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!future.isDone()) {
+                                parseInto(future, asyncRequest, pnrNumber, response);
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(StatusException e) {
+                    future.fail(e);
+                }
+            });
+        } else {
+            final LookupTask<Void> lookup = new LookupTask<Void>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        future.complete(withPnrNumber(getResponse(pnrNumber, stubResponse), pnrNumber));
+                    } catch (StatusException e) {
+                        future.fail(e);
+                    } catch (RuntimeException e) {
+                        future.fail(new StatusException(e.getMessage(), e));
+                    }
+                    return null;
+                }
+            });
+            request = new Cancellable() {
+                @Override
+                public void cancel() {
+                    lookup.cancel(true);
+                }
+
+                @Override
+                public boolean isCanceled() {
+                    return lookup.isCancelled();
+                }
+            };
+            LookupExecutor.getExecutor().execute(lookup);
+        }
+        future.setCancellable(request);
+        return future;
+    }
+
+    /**
+     * @return the request to look up the status without blocking, null if the provider can only look up the
+     * status blocking
+     */
+    protected AsyncRequest getAsyncRequest() {
+        return null;
+    }
+
+    /**
+     * Sets up how the network layer treats the requests to the host of a provider
+     *
+     * @param serviceUrl    any url on the host
+     * @param serviceName   name under which the traffic to the host is counted
+     * @param ratePerSecond requests sent to the host per second
+     * @param burst         requests that may be sent to the host at once
+     * @param retryPolicy   how failed requests to the host are retried
+     * @param cacheTtlMs    time for which the responses from the host are cached, 0 to not cache them
+     * @param mediaType     media type of the responses that hold a status
+     */
+    protected static void configureHost(final String serviceUrl, final String serviceName,
+                                        final double ratePerSecond, final int burst,
+                                        final RetryPolicy retryPolicy, final long cacheTtlMs,
+                                        final String mediaType) {
+        NetworkService networkService = NetworkService.getInstance();
+        networkService.setRateLimit(serviceUrl, ratePerSecond, burst);
+        networkService.setServiceName(serviceUrl, serviceName);
+        networkService.setRetryPolicy(serviceUrl, retryPolicy);
+        if (cacheTtlMs > 0) {
+            networkService.setCacheTtl(serviceUrl, cacheTtlMs, mediaType);
+        }
+    }
+
+    private static void parseInto(final StatusFuture future, final AsyncRequest asyncRequest,
+                                  final String pnrNumber, final String response) {
+        try {
+            future.complete(withPnrNumber(asyncRequest.parse(response), pnrNumber));
+        } catch (StatusException e) {
+            future.fail(e);
+        } catch (RuntimeException e) {
+            future.fail(new StatusException("Unable to Parse the response", e, ErrorCodes.PARSE_ERROR));
+        }
+    }
+
+    private static PNRStatusVo withPnrNumber(final PNRStatusVo statusVo, final String pnrNumber) {
+        // So that the ui can update the correct one in the list
+        if (null != statusVo) {
+            statusVo.setPnrNumber(pnrNumber);
+        }
+        return statusVo;
+    }
+
+    /**
+     * The pnrs are taken off a shared queue by up to getMaxParallelLookups() workers. The calling thread is one of
+     * them, so the batch makes progress even when the lookup pool is busy.
+     */
+    @Override
+    public Map<String, StatusResultVo> getResponses(final Collection<String> pnrNumbers) {
+        final Queue<String> pending = new ConcurrentLinkedQueue<String>(new LinkedHashSet<String>(pnrNumbers));
+        final Map<String, StatusResultVo> results = new ConcurrentHashMap<String, StatusResultVo>();
+        final CountDownLatch done = new CountDownLatch(pending.size());
+
+        int workerCount = Math.min(getMaxParallelLookups(), pending.size());
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        for (int i = 1; i < workerCount; i++) {
+            LookupTask<Void> worker = new LookupTask<Void>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    drain(pending, results, done);
+                    return null;
+                }
+            });
+            workers.add(worker);
+            LookupExecutor.getExecutor().execute(worker);
+        }
+        try {
+            drain(pending, results, done);
+            // Workers that start after the queue is empty have nothing to wait for
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<Void> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+
+        Map<String, StatusResultVo> orderedResults = new LinkedHashMap<String, StatusResultVo>();
+        for (String pnrNumber : pnrNumbers) {
+            StatusResultVo result = results.get(pnrNumber);
+            if (null == result) {
+                result = new StatusResultVo(pnrNumber, new StatusException("Lookup was cancelled",
+                        ErrorCodes.CANCELLED));
+            }
+            orderedResults.put(pnrNumber, result);
+        }
+        return orderedResults;
+    }
+
+    /**
+     * @return the number of lookups of a batch that may run at the same time
+     */
+    protected int getMaxParallelLookups() {
+        return MAX_PARALLEL_LOOKUPS;
+    }
+
+    private void drain(final Queue<String> pending, final Map<String, StatusResultVo> results,
+                       final CountDownLatch done) {
+        String pnrNumber;
+        while (!Thread.currentThread().isInterrupted() && null != (pnrNumber = pending.poll())) {
+            try {
+                results.put(pnrNumber, new StatusResultVo(pnrNumber, getResponse(pnrNumber)));
+            } catch (StatusException e) {
+                results.put(pnrNumber, new StatusResultVo(pnrNumber, e));
+            } catch (RuntimeException e) {
+                results.put(pnrNumber, new StatusResultVo(pnrNumber, new StatusException(e.getMessage(), e)));
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Looks up the status by posting the form of the provider, which only has to parse the response
+     */
+    protected abstract static class PostRequest implements AsyncRequest {
+        private final RequestTemplate mTemplate;
+
+        /**
+         * @param template the form, with the pnr number as its only variable param
+         */
+        protected PostRequest(final RequestTemplate template) {
+            mTemplate = template;
+        }
+
+        @Override
+        public Cancellable enqueue(String pnrNumber, Object tag, NetworkService.ResponseCallback callback) {
+            return NetworkService.getInstance().doPostRequestAsync(mTemplate, tag, callback, pnrNumber);
+        }
+    }
+
+    /**
+     * Looks up the status with a GET to the url of the pnr
+     */
+    protected abstract static class GetRequest implements AsyncRequest {
+
+        @Override
+        public Cancellable enqueue(String pnrNumber, Object tag, NetworkService.ResponseCallback callback) {
+            return NetworkService.getInstance().doGetRequestAsync(getUrl(pnrNumber), tag, callback);
+        }
+
+        /**
+         * @return the url that gives the status of the pnr
+         */
+        protected abstract String getUrl(String pnrNumber);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+/**
+ * Sends the request of a provider without blocking, and parses the response to it. The two go together, a provider
+ * supplies both or neither.
+ *
+ * @author Midhun
+ */
+public interface AsyncRequest {
+
+    /**
+     * Sends the request for the status of the pnr
+     *
+     * @param pnrNumber the pnr number
+     * @param tag       tag for the request
+     * @param callback  receives the response
+     * @return a handle to cancel the request
+     */
+    Cancellable enqueue(String pnrNumber, Object tag, NetworkService.ResponseCallback callback);
+
+    /**
+     * Parses the response to the request sent by enqueue
+     *
+     * @param response the response body
+     * @return the status
+     * @throws StatusException if the response has no status
+     */
+    PNRStatusVo parse(String response) throws StatusException;
+}
@@ -25,11 +25,14 @@
 package com.ae.apps.pnrstatus.service;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
 
 import org.json.JSONException;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+import com.ae.apps.pnrstatus.vo.StatusResultVo;
 
 public interface IStatusService {
 
@@ -40,6 +43,13 @@ public interface IStatusService {
 	 */
 	String getServiceName();
 
+	/**
+	 * Returns a url on the host that the service talks to
+	 * 
+	 * @return
+	 */
+	String getBaseUrl();
+
 	/**
 	 * Returns a PNRStatusVo object after parsing the JSON response
 	 * 
@@ -59,4 +69,30 @@ public interface IStatusService {
 	 * @throws IOException
 	 */
 	PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException;
+
+	/**
+	 * Looks up the status of a batch of pnrs. A pnr that could not be looked up gets a result with the error
+	 * instead of failing the whole batch.
+	 * 
+	 * @param pnrNumbers
+	 * @return the result for each pnr, in the order of pnrNumbers
+	 */
+	Map<String, StatusResultVo> getResponses(Collection<String> pnrNumbers);
+
+	/**
+	 * Looks up the status without blocking the calling thread
+	 * 
+	 * @param pnrNumber
+	 * @return the future result of the lookup
+	 */
+	StatusFuture getResponseAsync(String pnrNumber);
+
+	/**
+	 * Looks up the status without blocking the calling thread, based on the value for stubResponse
+	 * 
+	 * @param pnrNumber
+	 * @param stubResponse
+	 * @return the future result of the lookup
+	 */
+	StatusFuture getResponseAsync(String pnrNumber, Boolean stubResponse);
 }
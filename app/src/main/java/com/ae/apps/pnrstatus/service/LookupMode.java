@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service;
+
+/**
+ * How a pnr lookup makes use of the status providers
+ *
+ * @author Midhun
+ */
+public enum LookupMode {
+
+    /**
+     * Ask only the selected provider
+     */
+    DEFAULT("default"),
+
+    /**
+     * Ask the next healthy provider too, when the selected one is slower than usual
+     */
+    HEDGED("hedged"),
+
+    /**
+     * Move on to the next provider when the selected one fails, within one overall deadline
+     */
+    FALLBACK("fallback"),
+
+    /**
+     * Ask all the healthy providers at once and take the first answer
+     */
+    RACE("race");
+
+    private final String value;
+
+    LookupMode(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the value used for this mode in the preferences
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the LookupMode for the value stored in the preferences
+     *
+     * @param value the preference value
+     * @return the matching mode, DEFAULT if there is none
+     */
+    public static LookupMode fromValue(final String value) {
+        for (LookupMode mode : values()) {
+            if (mode.value.equals(value)) {
+                return mode;
+            }
+        }
+        return DEFAULT;
+    }
+}
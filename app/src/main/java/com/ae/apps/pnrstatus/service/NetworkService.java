@@ -27,61 +27,250 @@ package com.ae.apps.pnrstatus.service;
 import android.util.Pair;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.network.CallCanceledException;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.service.network.HttpTransport;
+import com.ae.apps.pnrstatus.service.network.NetworkMetrics;
+import com.ae.apps.pnrstatus.service.network.OkHttpTransport;
+import com.ae.apps.pnrstatus.service.network.RateLimitInterceptor;
+import com.ae.apps.pnrstatus.service.network.RequestTemplate;
+import com.ae.apps.pnrstatus.service.network.ResponseCache;
+import com.ae.apps.pnrstatus.service.network.RetryBudget;
+import com.ae.apps.pnrstatus.service.network.RetryInterceptor;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
+import com.ae.apps.pnrstatus.service.network.StreamingBody;
+import com.squareup.okhttp.CacheControl;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Dispatcher;
 import com.squareup.okhttp.FormEncodingBuilder;
 import com.squareup.okhttp.HttpUrl;
 import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.RequestBody;
-import com.squareup.okhttp.Response;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Single entry point for the http traffic of the app. All the IStatusService implementations share the
+ * OkHttpClient held here, so connections to a provider host are kept alive and reused between lookups.
+ * Requests are built here and handed over to an HttpTransport for execution.
+ */
 public class NetworkService {
 
+    /**
+     * Idle connections kept in the pool, roughly one per provider host
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 6;
+    private static final long KEEP_ALIVE_DURATION_MS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Limits on the number of calls that the dispatcher runs at the same time
+     */
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+    private static final long WRITE_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Deadline for a whole call, from connecting till the last byte of the body is read
+     */
+    private static final long CALL_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Requests to hosts without a retry policy of their own are tried twice, POSTs only once
+     */
+    private static final int DEFAULT_RETRY_ATTEMPTS = 2;
+
+    /**
+     * At most a fifth of the requests are retried, with up to 10 retries saved up
+     */
+    private static final double RETRY_BUDGET_RATIO = 0.2;
+    private static final int RETRY_BUDGET_MAX = 10;
+
+    /**
+     * Streamed bodies are parsed while they download, the disk cache must not buffer them first
+     */
+    private static final CacheControl NO_STORE = new CacheControl.Builder().noStore().build();
+
     private OkHttpClient client;
 
+    private HttpTransport transport;
+
+    private final RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor();
+
+    private final ResponseCache responseCache = new ResponseCache();
+
+    private final RetryInterceptor retryInterceptor = new RetryInterceptor(
+            new RetryPolicy(DEFAULT_RETRY_ATTEMPTS, false),
+            new RetryBudget(RETRY_BUDGET_RATIO, RETRY_BUDGET_MAX));
+
+    private final NetworkMetrics metrics = new NetworkMetrics();
+
     private static NetworkService sService;
 
+    /**
+     * Tag for the requests made by the current thread without a tag of their own
+     */
+    private static final ThreadLocal<Object> sThreadTag = new ThreadLocal<Object>();
+
     private NetworkService() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
         client = new OkHttpClient();
+        client.setConnectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION_MS));
+        client.setDispatcher(dispatcher);
+        client.setConnectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        client.setReadTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        client.setWriteTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        // Cached responses skip the retries and the rate limit. Every attempt made by the retry interceptor
+        // waits for the rate limit.
+        client.interceptors().add(metrics.getCallInterceptor());
+        client.interceptors().add(responseCache);
+        client.interceptors().add(retryInterceptor);
+        client.interceptors().add(rateLimitInterceptor);
+        client.interceptors().add(metrics.getAttemptInterceptor());
+        client.networkInterceptors().add(metrics.getNetworkInterceptor());
+
+        transport = new OkHttpTransport(client, TimeUnit.SECONDS.toMillis(CALL_TIMEOUT_SECONDS));
     }
 
-    public static NetworkService getInstance() {
+    public static synchronized NetworkService getInstance() {
         if (null == sService) {
             sService = new NetworkService();
         }
         return sService;
     }
 
-    public String doGetRequest(final String httpUrl) throws Exception {
-        return doGetRequest(httpUrl, null);
+    /**
+     * Replaces the transport that executes the requests
+     *
+     * @param transport the transport to use
+     */
+    public void setTransport(final HttpTransport transport) {
+        this.transport = transport;
     }
 
-    public String doGetRequest(final String httpUrl, List<Pair<String, String>> params)
-            throws Exception {
-        HttpUrl.Builder urlBuilder = HttpUrl.parse(httpUrl).newBuilder();
+    /**
+     * Limits the rate of requests to the host of the url. Requests over the limit wait for their turn instead of
+     * failing. The first limit set for a host is kept.
+     *
+     * @param serviceUrl       any url on the host
+     * @param permitsPerSecond the sustained rate of requests
+     * @param burst            the number of requests that may go at once after an idle period
+     */
+    public void setRateLimit(final String serviceUrl, final double permitsPerSecond, final int burst) {
+        rateLimitInterceptor.setLimit(HttpUrl.parse(serviceUrl).host(), permitsPerSecond, burst);
+    }
 
-        // Add Query Params if present
-        if (null != params && !params.isEmpty()) {
-            for (Pair<String, String> param : params) {
-                urlBuilder.addQueryParameter(param.first, param.second);
-            }
+    /**
+     * Sets how the failed requests to the host of the url are retried
+     *
+     * @param serviceUrl any url on the host
+     * @param policy     the retry policy
+     */
+    public void setRetryPolicy(final String serviceUrl, final RetryPolicy policy) {
+        retryInterceptor.setPolicy(HttpUrl.parse(serviceUrl).host(), policy);
+    }
+
+    /**
+     * Sets how long the responses from the host of the url are answered from the disk cache
+     *
+     * @param serviceUrl any url on the host
+     * @param ttlMs      the freshness window in milliseconds, 0 to not cache the responses
+     * @param mediaType  type and subtype of the responses that hold a status, the others are not stored
+     */
+    public void setCacheTtl(final String serviceUrl, final long ttlMs, final String mediaType) {
+        responseCache.setTtl(HttpUrl.parse(serviceUrl).host(), ttlMs, mediaType);
+    }
+
+    /**
+     * Counts the traffic to the host of the url under the name of the service
+     *
+     * @param serviceUrl  any url on the host
+     * @param serviceName name of the service
+     */
+    public void setServiceName(final String serviceUrl, final String serviceName) {
+        metrics.setServiceName(HttpUrl.parse(serviceUrl).host(), serviceName);
+    }
+
+    /**
+     * @return the bytes, time and connections spent on the requests of each service
+     */
+    public Map<String, NetworkMetrics.Snapshot> getMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Starts keeping the responses of the hosts that have a cache ttl on disk
+     *
+     * @param directory directory for the cached responses
+     * @param maxSize   size in bytes that the cache may take up
+     */
+    public void installCache(final File directory, final long maxSize) {
+        responseCache.open(directory, maxSize);
+    }
+
+    /**
+     * Tags all the requests that the current thread makes from now on, so that a blocking lookup running on the
+     * thread can be aborted from another thread using cancel(tag)
+     *
+     * @param tag the tag, null to clear it
+     */
+    public static void setThreadTag(final Object tag) {
+        if (null == tag) {
+            sThreadTag.remove();
+        } else {
+            sThreadTag.set(tag);
         }
+    }
 
-        String url = urlBuilder.build().toString();
+    public String doGetRequest(final String httpUrl) throws StatusException {
+        return doGetRequest(httpUrl, null);
+    }
 
+    public String doGetRequest(final String httpUrl, List<Pair<String, String>> params)
+            throws StatusException {
         try {
-            Request request = new Request.Builder()
-                    .url(url)
-                    .build();
-            Response response = client.newCall(request).execute();
+            return transport.execute(buildGetRequest(httpUrl, params, null));
+        } catch (IOException ex) {
+            throw toStatusException(ex);
+        }
+    }
+
+    /**
+     * Performs a GET request in the background
+     *
+     * @param httpUrl  the url
+     * @param tag      tag for the request, to cancel it later using cancel(tag). Can be null
+     * @param callback receives the result on a background thread
+     * @return a handle to cancel the request
+     */
+    public Cancellable doGetRequestAsync(final String httpUrl, final Object tag, final ResponseCallback callback) {
+        return transport.enqueue(buildGetRequest(httpUrl, null, tag), new TransportCallback(callback));
+    }
 
-            return response.body().string();
+    /**
+     * Performs a GET request and returns the body before it is read, so that it can be parsed while it downloads.
+     * The caller must close the returned body.
+     *
+     * @param httpUrl the url
+     * @return the streaming response body
+     * @throws StatusException if the request fails
+     */
+    public StreamingBody doGetStream(final String httpUrl) throws StatusException {
+        try {
+            return transport.open(buildGetRequest(httpUrl, null, null));
         } catch (IOException ex) {
-            throw new StatusException(ex.getMessage(), StatusException.ErrorCodes.URL_ERROR);
+            throw toStatusException(ex);
         }
     }
 
@@ -90,33 +279,259 @@ public class NetworkService {
     public String doPostRequest(final String targetUrl,
                                 final Map<String, String> headers,
                                 final Map<String, String> params) throws StatusException {
-        //RequestBody requestBody = RequestBody.create(WEB_FORM, "");
         try {
-            Request.Builder requestBuilder = new Request.Builder()
-                    .url(targetUrl);
-            if (null != headers) {
-                for (String key : headers.keySet()) {
-                    requestBuilder.addHeader(key, String.valueOf(headers.get(key)));
-                }
+            return transport.execute(buildPostRequest(targetUrl, headers, params, null));
+        } catch (IOException ex) {
+            throw toStatusException(ex);
+        }
+    }
+
+    /**
+     * Performs a POST request in the background
+     *
+     * @param targetUrl the url
+     * @param headers   request headers
+     * @param params    form parameters
+     * @param tag       tag for the request, to cancel it later using cancel(tag). Can be null
+     * @param callback  receives the result on a background thread
+     * @return a handle to cancel the request
+     */
+    public Cancellable doPostRequestAsync(final String targetUrl,
+                                          final Map<String, String> headers,
+                                          final Map<String, String> params,
+                                          final Object tag,
+                                          final ResponseCallback callback) {
+        return transport.enqueue(buildPostRequest(targetUrl, headers, params, tag), new TransportCallback(callback));
+    }
+
+    /**
+     * Opens a connection to the host of the url in the background, so that the first request to it does not wait
+     * for the dns lookup and the tcp and tls handshakes. The connection stays in the pool for reuse.
+     *
+     * @param url any url on the host
+     */
+    public void prewarm(final String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (null == httpUrl) {
+            return;
+        }
+        // A HEAD on the root of the host, connecting for it resolves the host name too
+        Request request = new Request.Builder()
+                .url(httpUrl.resolve("/"))
+                .head()
+                .build();
+        transport.enqueue(request, new HttpTransport.Callback() {
+            @Override
+            public void onResponse(String body) {
+                // Only the connection was needed
             }
-            //--
-            FormEncodingBuilder formEncodingBuilder = new FormEncodingBuilder();
-            if (null != params) {
-                for (String key : params.keySet()) {
-                    formEncodingBuilder.add(key, String.valueOf(params.get(key)));
-                }
+
+            @Override
+            public void onFailure(IOException e) {
+                // The lookup will connect by itself
             }
+        });
+    }
 
-            RequestBody formBody = formEncodingBuilder.build();
-            Request request = requestBuilder
-                    .url(targetUrl)
-                    .post(formBody)
-                    .build();
+    /**
+     * Cancels the queued and running requests that were made with this tag
+     *
+     * @param tag the tag passed while making the requests
+     */
+    public void cancel(final Object tag) {
+        transport.cancel(tag);
+    }
 
-            Response response = client.newCall(request).execute();
-            return response.body().string();
+    /**
+     * Cancels all the queued and running requests, blocking calls included
+     */
+    public void cancelAll() {
+        transport.cancelAll();
+    }
+
+    /**
+     * Performs a POST request and returns the body before it is read, so that it can be parsed while it downloads.
+     * The caller must close the returned body.
+     *
+     * @param targetUrl the url
+     * @param headers   request headers
+     * @param params    form parameters
+     * @return the streaming response body
+     * @throws StatusException if the request fails
+     */
+    public StreamingBody doPostStream(final String targetUrl,
+                                      final Map<String, String> headers,
+                                      final Map<String, String> params) throws StatusException {
+        try {
+            return transport.open(noStore(buildPostRequest(targetUrl, headers, params, null)));
+        } catch (IOException ex) {
+            throw toStatusException(ex);
+        }
+    }
+
+    /**
+     * Performs the POST described by the template
+     *
+     * @param template the request template of the provider
+     * @param values   values for the variable params of the template
+     * @return the response body
+     * @throws StatusException if the request fails
+     */
+    public String doPostRequest(final RequestTemplate template, final String... values) throws StatusException {
+        try {
+            return transport.execute(template.newRequest(sThreadTag.get(), values));
+        } catch (IOException ex) {
+            throw toStatusException(ex);
+        }
+    }
+
+    /**
+     * Performs the POST described by the template in the background
+     *
+     * @param template the request template of the provider
+     * @param tag      tag for the request, to cancel it later using cancel(tag). Can be null
+     * @param callback receives the result on a background thread
+     * @param values   values for the variable params of the template
+     * @return a handle to cancel the request
+     */
+    public Cancellable doPostRequestAsync(final RequestTemplate template,
+                                          final Object tag,
+                                          final ResponseCallback callback,
+                                          final String... values) {
+        Request request = template.newRequest(null != tag ? tag : sThreadTag.get(), values);
+        return transport.enqueue(request, new TransportCallback(callback));
+    }
+
+    /**
+     * Performs the POST described by the template and returns the body before it is read. The caller must close
+     * the returned body.
+     *
+     * @param template the request template of the provider
+     * @param values   values for the variable params of the template
+     * @return the streaming response body
+     * @throws StatusException if the request fails
+     */
+    public StreamingBody doPostStream(final RequestTemplate template, final String... values) throws StatusException {
+        try {
+            return transport.open(noStore(template.newRequest(sThreadTag.get(), values)));
         } catch (IOException ex) {
-            throw new StatusException(ex.getMessage(), StatusException.ErrorCodes.URL_ERROR);
+            throw toStatusException(ex);
+        }
+    }
+
+    /**
+     * Performs the POST described by the template to another url, and returns the body before it is read. The
+     * caller must close the returned body.
+     *
+     * @param targetUrl the url to post to
+     * @param template  the request template of the provider
+     * @param values    values for the variable params of the template
+     * @return the streaming response body
+     * @throws StatusException if the request fails
+     */
+    public StreamingBody doPostStream(final String targetUrl,
+                                      final RequestTemplate template,
+                                      final String... values) throws StatusException {
+        HttpUrl httpUrl = HttpUrl.parse(targetUrl);
+        if (null == httpUrl) {
+            throw new StatusException("Invalid url " + targetUrl, StatusException.ErrorCodes.URL_ERROR);
+        }
+        try {
+            return transport.open(noStore(template.newRequestTo(httpUrl, sThreadTag.get(), values)));
+        } catch (IOException ex) {
+            throw toStatusException(ex);
+        }
+    }
+
+    private Request buildGetRequest(final String httpUrl,
+                                    final List<Pair<String, String>> params,
+                                    final Object tag) {
+        HttpUrl.Builder urlBuilder = HttpUrl.parse(httpUrl).newBuilder();
+
+        // Add Query Params if present
+        if (null != params && !params.isEmpty()) {
+            for (Pair<String, String> param : params) {
+                urlBuilder.addQueryParameter(param.first, param.second);
+            }
+        }
+
+        return new Request.Builder()
+                .url(urlBuilder.build())
+                .tag(null != tag ? tag : sThreadTag.get())
+                .build();
+    }
+
+    private Request buildPostRequest(final String targetUrl,
+                                     final Map<String, String> headers,
+                                     final Map<String, String> params,
+                                     final Object tag) {
+        //RequestBody requestBody = RequestBody.create(WEB_FORM, "");
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(targetUrl);
+        if (null != headers) {
+            for (String key : headers.keySet()) {
+                requestBuilder.addHeader(key, String.valueOf(headers.get(key)));
+            }
+        }
+        //--
+        FormEncodingBuilder formEncodingBuilder = new FormEncodingBuilder();
+        if (null != params) {
+            for (String key : params.keySet()) {
+                formEncodingBuilder.add(key, String.valueOf(params.get(key)));
+            }
+        }
+
+        RequestBody formBody = formEncodingBuilder.build();
+        return requestBuilder
+                .url(targetUrl)
+                .post(formBody)
+                .tag(null != tag ? tag : sThreadTag.get())
+                .build();
+    }
+
+    private static Request noStore(final Request request) {
+        return request.newBuilder().cacheControl(NO_STORE).build();
+    }
+
+    /**
+     * Converts a failed request to a StatusException. A request cancelled by the app is CANCELLED, so that it is
+     * not held against the provider.
+     */
+    private static StatusException toStatusException(final IOException e) {
+        if (e instanceof CallCanceledException) {
+            return new StatusException(e.getMessage(), e, StatusException.ErrorCodes.CANCELLED);
+        }
+        return new StatusException(e.getMessage(), e, StatusException.ErrorCodes.URL_ERROR);
+    }
+
+    /**
+     * Receives the result of a request made with one of the async methods
+     */
+    public interface ResponseCallback {
+
+        void onResponse(String response);
+
+        void onFailure(StatusException e);
+    }
+
+    /**
+     * Converts the failures from the transport to StatusExceptions
+     */
+    private static class TransportCallback implements HttpTransport.Callback {
+        private final ResponseCallback callback;
+
+        TransportCallback(final ResponseCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponse(String body) {
+            callback.onResponse(body);
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+            callback.onFailure(toStatusException(e));
         }
     }
 }
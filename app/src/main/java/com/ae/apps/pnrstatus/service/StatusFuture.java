@@ -0,0 +1,239 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The result of an async lookup. Listeners are told of the result on the thread that completes the lookup, or right
+ * away when it is complete already. Cancelling the future also cancels the request of the lookup.
+ *
+ * @author Midhun
+ */
+public class StatusFuture implements Future<PNRStatusVo> {
+
+    /**
+     * Receives the result of the lookup
+     */
+    public interface Listener {
+
+        void onSuccess(PNRStatusVo statusVo);
+
+        void onFailure(StatusException e);
+    }
+
+    private final List<Listener> mListeners = new ArrayList<Listener>();
+
+    private boolean mDone;
+    private boolean mCancelled;
+    private PNRStatusVo mResult;
+    private StatusException mError;
+    private Cancellable mCancellable;
+
+    /**
+     * @param e the error
+     * @return a future that has failed with the error already
+     */
+    public static StatusFuture failed(final StatusException e) {
+        StatusFuture future = new StatusFuture();
+        future.fail(e);
+        return future;
+    }
+
+    /**
+     * Completes the lookup with its status
+     *
+     * @return false if the lookup was complete already
+     */
+    public boolean complete(final PNRStatusVo statusVo) {
+        return finish(statusVo, null, false);
+    }
+
+    /**
+     * Completes the lookup with an error
+     *
+     * @return false if the lookup was complete already
+     */
+    public boolean fail(final StatusException e) {
+        return finish(null, e, false);
+    }
+
+    /**
+     * Sets the work to cancel when the future is cancelled
+     *
+     * @param cancellable the request or task of the lookup
+     */
+    public void setCancellable(final Cancellable cancellable) {
+        synchronized (this) {
+            if (!mDone) {
+                mCancellable = cancellable;
+                return;
+            }
+            if (!mCancelled) {
+                return;
+            }
+        }
+        cancellable.cancel();
+    }
+
+    public void addListener(final Listener listener) {
+        synchronized (this) {
+            if (!mDone) {
+                mListeners.add(listener);
+                return;
+            }
+        }
+        notifyListener(listener);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        if (!finish(null, new StatusException("Lookup was cancelled", StatusException.ErrorCodes.CANCELLED),
+                true)) {
+            return false;
+        }
+        Cancellable cancellable;
+        synchronized (this) {
+            cancellable = mCancellable;
+            mCancellable = null;
+        }
+        if (null != cancellable) {
+            cancellable.cancel();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mDone;
+    }
+
+    @Override
+    public synchronized PNRStatusVo get() throws InterruptedException, ExecutionException {
+        while (!mDone) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized PNRStatusVo get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!mDone) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getResult();
+    }
+
+    /**
+     * Waits for the lookup the way a blocking getResponse would
+     *
+     * @return the status
+     * @throws StatusException if the lookup failed, was cancelled or the wait was interrupted
+     */
+    public synchronized PNRStatusVo getStatus() throws StatusException {
+        try {
+            while (!mDone) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatusException("Interrupted while waiting for the status", e,
+                    StatusException.ErrorCodes.CANCELLED);
+        }
+        if (null != mError) {
+            throw mError;
+        }
+        return mResult;
+    }
+
+    private PNRStatusVo getResult() throws ExecutionException {
+        if (mCancelled) {
+            throw new CancellationException();
+        }
+        if (null != mError) {
+            throw new ExecutionException(mError.getMessage(), mError);
+        }
+        return mResult;
+    }
+
+    private boolean finish(final PNRStatusVo statusVo, final StatusException error, final boolean cancelled) {
+        List<Listener> listeners;
+        synchronized (this) {
+            if (mDone) {
+                return false;
+            }
+            mDone = true;
+            mCancelled = cancelled;
+            mResult = statusVo;
+            mError = error;
+            if (!cancelled) {
+                mCancellable = null;
+            }
+            listeners = new ArrayList<Listener>(mListeners);
+            mListeners.clear();
+            notifyAll();
+        }
+        for (Listener listener : listeners) {
+            notifyListener(listener);
+        }
+        return true;
+    }
+
+    private void notifyListener(final Listener listener) {
+        // Read under the lock, the fields were written by the completing thread
+        PNRStatusVo result;
+        StatusException error;
+        synchronized (this) {
+            result = mResult;
+            error = mError;
+        }
+        if (null != error) {
+            listener.onFailure(error);
+        } else {
+            listener.onSuccess(result);
+        }
+    }
+}
@@ -31,13 +31,36 @@ import com.ae.apps.pnrstatus.service.status.IxigoService;
 import com.ae.apps.pnrstatus.service.status.PNRStatusService;
 import com.ae.apps.pnrstatus.service.status.PnrApiService;
 import com.ae.apps.pnrstatus.service.status.TrainPnrStatusService;
+import com.ae.apps.pnrstatus.service.strategy.AdaptiveStatusService;
+import com.ae.apps.pnrstatus.service.strategy.CircuitBreakerStatusService;
+import com.ae.apps.pnrstatus.service.strategy.CoalescingStatusService;
+import com.ae.apps.pnrstatus.service.strategy.FallbackStatusService;
+import com.ae.apps.pnrstatus.service.strategy.HedgedStatusService;
+import com.ae.apps.pnrstatus.service.strategy.MonitoredStatusService;
+import com.ae.apps.pnrstatus.service.strategy.NegativeCacheStatusService;
+import com.ae.apps.pnrstatus.service.strategy.RaceStatusService;
+import com.ae.apps.pnrstatus.service.strategy.StatusCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * The StatusServiceFactory returns an implementation of the IStatusService class based on the request.
+ * The StatusServiceFactory returns an implementation of the IStatusService class based on the request. Each service
+ * is built once and then reused, so that the state it warms up, like a discovered endpoint, is kept between lookups.
  *
  * @author Midhun_Harikumar
  */
 public class StatusServiceFactory {
+    /**
+     * Picks the provider for each lookup based on how the providers have been doing
+     */
+    public static final int AUTO_SERVICE = 0;
     private static final int IXIGO_SERVICE = 1;
     private static final int PNRAPI_SERVICE = 2;
     private static final int INDIAN_RAIL_SERVICE = 3;
@@ -45,6 +68,40 @@ public class StatusServiceFactory {
     private static final int IRCTC_PNR_STATUS_SERVICE = 5;
     public static final int TRAIN_PNR_STATUS_SERVICE = 6;
 
+    /**
+     * The order in which the providers are used as alternates, most reliable first
+     */
+    private static final int[] PROVIDER_ORDER = {
+            TRAIN_PNR_STATUS_SERVICE,
+            INDIAN_RAIL_SERVICE,
+            IRCTC_PNR_STATUS_SERVICE,
+            PNR_STATUS_SERVICE,
+            PNRAPI_SERVICE,
+            IXIGO_SERVICE
+    };
+
+    /**
+     * Time that a lookup in the FALLBACK mode may take across all the providers it tries
+     */
+    private static final long FALLBACK_DEADLINE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Providers that the app offers, null to offer all of them. Only these are tried as alternates.
+     */
+    private static volatile Set<Integer> sEnabledServices;
+
+    /**
+     * Providers built so far, by type
+     */
+    private static final ConcurrentMap<Integer, IStatusService> sServices =
+            new ConcurrentHashMap<Integer, IStatusService>();
+
+    /**
+     * Managed services built so far, by the type as stored in the preferences and the lookup mode
+     */
+    private static final ConcurrentMap<String, IStatusService> sManagedServices =
+            new ConcurrentHashMap<String, IStatusService>();
+
     /**
      * Returns an IStatusService implementation based on the value of the type
      *
@@ -53,6 +110,18 @@ public class StatusServiceFactory {
      * @throws InvalidServiceException if the value of type is invalid
      */
     public static IStatusService getService(int type) throws InvalidServiceException {
+        IStatusService statusService = sServices.get(type);
+        if (null == statusService) {
+            IStatusService newService = createService(type);
+            statusService = sServices.putIfAbsent(type, newService);
+            if (null == statusService) {
+                statusService = newService;
+            }
+        }
+        return statusService;
+    }
+
+    private static IStatusService createService(int type) throws InvalidServiceException {
         // Identify the type of service to create
         IStatusService statusService = null;
         switch (type) {
@@ -92,4 +161,152 @@ public class StatusServiceFactory {
     public static IStatusService getService(String type) throws InvalidServiceException {
         return getService(Integer.valueOf(type));
     }
-}
\ No newline at end of file
+
+    /**
+     * Limits the providers that the managed services make use of to the ones the app offers, so that a lookup does
+     * not go to a provider that has been taken out of the app
+     *
+     * @param serviceValues the types of the providers offered, as in the serviceValues array, null to offer all
+     */
+    public static synchronized void setEnabledServices(String[] serviceValues) {
+        Set<Integer> enabledServices = null;
+        if (null != serviceValues) {
+            enabledServices = new HashSet<Integer>();
+            for (String serviceValue : serviceValues) {
+                try {
+                    enabledServices.add(Integer.valueOf(serviceValue));
+                } catch (NumberFormatException e) {
+                    // Not a provider, nothing to enable
+                }
+            }
+            enabledServices = Collections.unmodifiableSet(enabledServices);
+        }
+        if (null == enabledServices ? null != sEnabledServices : !enabledServices.equals(sEnabledServices)) {
+            sEnabledServices = enabledServices;
+            // Built with the providers enabled before
+            sManagedServices.clear();
+        }
+    }
+
+    /**
+     * Returns the providers other than the one for the type, in the order they should be used as alternates
+     *
+     * @param type the type of the primary service
+     * @return the alternate services, only the enabled ones
+     * @throws InvalidServiceException if the value of type is invalid
+     */
+    public static List<IStatusService> getAlternateServices(int type) throws InvalidServiceException {
+        List<IStatusService> alternates = new ArrayList<IStatusService>();
+        for (int alternateType : getEnabledProviders()) {
+            if (alternateType != type) {
+                alternates.add(getService(alternateType));
+            }
+        }
+        return alternates;
+    }
+
+    /**
+     * @return the types of the enabled providers, in PROVIDER_ORDER
+     */
+    private static List<Integer> getEnabledProviders() {
+        Set<Integer> enabledServices = sEnabledServices;
+        List<Integer> providers = new ArrayList<Integer>();
+        for (int providerType : PROVIDER_ORDER) {
+            if (null == enabledServices || enabledServices.contains(providerType)) {
+                providers.add(providerType);
+            }
+        }
+        return providers;
+    }
+
+    /**
+     * Returns the IStatusService to be used by the app for the type. Unlike getService, concurrent lookups of the
+     * same pnr number through the returned service share a single request, and a pnr whose status is still fresh is
+     * answered from the StatusCache. A pnr that was just found to be invalid fails right away for a short while.
+     *
+     * @param type requested type
+     * @return the status service for the requested type
+     * @throws InvalidServiceException if the value of type is invalid
+     */
+    public static IStatusService getManagedService(String type) throws InvalidServiceException {
+        return getManagedService(type, LookupMode.DEFAULT);
+    }
+
+    /**
+     * Returns the IStatusService to be used by the app for the type, making use of the other enabled providers as
+     * the lookup mode allows. For AUTO_SERVICE the provider is chosen for each lookup and the mode does not apply.
+     *
+     * @param type requested type
+     * @param mode how the other providers are to be used
+     * @return the status service for the requested type
+     * @throws InvalidServiceException if the value of type is invalid
+     */
+    public static IStatusService getManagedService(String type, LookupMode mode) throws InvalidServiceException {
+        String key = type + ":" + mode.getValue();
+        IStatusService managedService = sManagedServices.get(key);
+        if (null == managedService) {
+            IStatusService newService = createManagedService(type, mode);
+            managedService = sManagedServices.putIfAbsent(key, newService);
+            if (null == managedService) {
+                managedService = newService;
+            }
+        }
+        return managedService;
+    }
+
+    private static IStatusService createManagedService(String type, LookupMode mode) throws InvalidServiceException {
+        int serviceType;
+        try {
+            serviceType = Integer.valueOf(type);
+        } catch (NumberFormatException e) {
+            throw new InvalidServiceException(e);
+        }
+        if (AUTO_SERVICE == serviceType) {
+            // Already moves away from a slow provider, hedging on top of it is not needed
+            List<IStatusService> providers = new ArrayList<IStatusService>();
+            for (int providerType : getEnabledProviders()) {
+                providers.add(guard(getService(providerType)));
+            }
+            if (providers.isEmpty()) {
+                throw new InvalidServiceException();
+            }
+            return managed(new AdaptiveStatusService(providers));
+        }
+
+        IStatusService service = guard(getService(serviceType));
+        List<IStatusService> alternates = new ArrayList<IStatusService>();
+        if (LookupMode.DEFAULT != mode) {
+            for (IStatusService alternate : getAlternateServices(serviceType)) {
+                alternates.add(guard(alternate));
+            }
+        }
+        // With no other provider enabled, there is nothing to hedge, race or fall back to
+        if (!alternates.isEmpty()) {
+            if (LookupMode.HEDGED == mode) {
+                service = new HedgedStatusService(service, alternates);
+            } else {
+                alternates.add(0, service);
+                if (LookupMode.RACE == mode) {
+                    service = new RaceStatusService(alternates);
+                } else {
+                    service = new FallbackStatusService(alternates, FALLBACK_DEADLINE_MS);
+                }
+            }
+        }
+        return managed(service);
+    }
+
+    /**
+     * Adds the caching of the results that is common to all the managed services
+     */
+    private static IStatusService managed(IStatusService service) {
+        return new StatusCache(new NegativeCacheStatusService(new CoalescingStatusService(service)));
+    }
+
+    /**
+     * Wraps the provider so that its lookups are measured, and rejected while its circuit breaker is open
+     */
+    private static IStatusService guard(IStatusService service) {
+        return new CircuitBreakerStatusService(new MonitoredStatusService(service));
+    }
+}
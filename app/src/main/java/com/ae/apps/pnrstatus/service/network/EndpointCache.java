@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers urls that were discovered by fetching a page, such as the action of a form, for a limited time
+ *
+ * @author Midhun
+ */
+public class EndpointCache {
+
+    private final long mTtlMs;
+    private final ConcurrentMap<String, Entry> mEntries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * @param ttlMs time for which a discovered url is used before it is discovered again
+     */
+    public EndpointCache(final long ttlMs) {
+        mTtlMs = ttlMs;
+    }
+
+    /**
+     * @param key the key for the url, usually the url of the page it was found on
+     * @return the url, null if it is not known or has expired
+     */
+    public String get(final String key) {
+        Entry entry = mEntries.get(key);
+        if (null == entry) {
+            return null;
+        }
+        if (now() - entry.discoveredAt >= mTtlMs) {
+            mEntries.remove(key, entry);
+            return null;
+        }
+        return entry.url;
+    }
+
+    public void put(final String key, final String url) {
+        mEntries.put(key, new Entry(url, now()));
+    }
+
+    /**
+     * Forgets the url for the key, if it has not been replaced by another url meanwhile
+     *
+     * @param key the key for the url
+     * @param url the url that did not work
+     */
+    public void invalidate(final String key, final String url) {
+        Entry entry = mEntries.get(key);
+        if (null != entry && entry.url.equals(url)) {
+            mEntries.remove(key, entry);
+        }
+    }
+
+    /**
+     * @return the current time in milliseconds, overridden in tests
+     */
+    protected long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    private static class Entry {
+        final String url;
+        final long discoveredAt;
+
+        Entry(final String url, final long discoveredAt) {
+            this.url = url;
+            this.discoveredAt = discoveredAt;
+        }
+    }
+}
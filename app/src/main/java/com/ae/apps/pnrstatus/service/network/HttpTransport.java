@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.Request;
+
+import java.io.IOException;
+
+/**
+ * The transport that carries every http request made by the app. NetworkService hands all its requests to a
+ * single transport, so that pooling, metering and caching of the traffic can happen in one place.
+ *
+ * @author Midhun
+ */
+public interface HttpTransport {
+
+    /**
+     * Executes the request and returns the response body
+     *
+     * @param request the request to execute
+     * @return the response body as text
+     * @throws IOException if the request fails or runs past its deadline
+     */
+    String execute(Request request) throws IOException;
+
+    /**
+     * Executes the request and returns the body without reading it. The caller has to close the returned body.
+     *
+     * @param request the request to execute
+     * @return the body of the response, to be read as it arrives
+     * @throws IOException if the request fails or runs past its deadline
+     */
+    StreamingBody open(Request request) throws IOException;
+
+    /**
+     * Queues the request to be executed in the background. The callback is invoked on a background thread.
+     *
+     * @param request  the request to execute
+     * @param callback receives the response body or the failure
+     * @return a handle to cancel the request
+     */
+    Cancellable enqueue(Request request, Callback callback);
+
+    /**
+     * Cancels all the queued and running requests carrying the tag
+     *
+     * @param tag the tag set on the requests
+     */
+    void cancel(Object tag);
+
+    /**
+     * Cancels every queued and running request
+     */
+    void cancelAll();
+
+    /**
+     * Receives the result of a request queued with enqueue
+     */
+    interface Callback {
+
+        void onResponse(String body);
+
+        void onFailure(IOException e);
+    }
+}
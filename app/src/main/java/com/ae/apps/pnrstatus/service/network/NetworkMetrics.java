@@ -0,0 +1,421 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Counts the bytes, time and connections that the requests to each provider cost. The counters are kept per
+ * service name, for hosts registered with setServiceName, and per host otherwise.
+ * <p>
+ * OkHttp 2.5 does not report the phases of a connection, so dns lookup, tcp connect and tls handshake are measured
+ * together as the setup time of new connections. The three interceptors have to be installed in this order:
+ * getCallInterceptor as the first application interceptor, getAttemptInterceptor as the last one, and
+ * getNetworkInterceptor as a network interceptor.
+ *
+ * @author Midhun
+ */
+public class NetworkMetrics {
+
+    private final ConcurrentMap<String, String> mServiceNames = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, Counters> mCounters = new ConcurrentHashMap<String, Counters>();
+
+    /**
+     * Connections that have carried a request already, to tell the new ones apart
+     */
+    private final Map<Connection, Boolean> mSeenConnections =
+            Collections.synchronizedMap(new WeakHashMap<Connection, Boolean>());
+
+    /**
+     * Time at which the current attempt of the call on this thread passed the application interceptors
+     */
+    private final ThreadLocal<Long> mAttemptStart = new ThreadLocal<Long>();
+
+    /**
+     * Set when a network request was made for the call on this thread, calls without one came from the cache
+     */
+    private final ThreadLocal<Boolean> mWentToNetwork = new ThreadLocal<Boolean>();
+
+    private final Interceptor mCallInterceptor = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final Counters counters = countersFor(chain.request());
+            final long start = System.nanoTime();
+            mWentToNetwork.remove();
+            counters.calls.incrementAndGet();
+
+            Response response;
+            try {
+                response = chain.proceed(chain.request());
+            } catch (IOException e) {
+                counters.failures.incrementAndGet();
+                counters.callTimeMs.addAndGet(elapsedMs(start));
+                throw e;
+            }
+            if (null == mWentToNetwork.get()) {
+                counters.cacheHits.incrementAndGet();
+            }
+            mWentToNetwork.remove();
+
+            // The call is over once its body has been read
+            return response.newBuilder()
+                    .body(new MeteredBody(response.body(), new BodyListener() {
+                        @Override
+                        public void onBodyDone(long bytes) {
+                            counters.callTimeMs.addAndGet(elapsedMs(start));
+                        }
+                    }))
+                    .build();
+        }
+    };
+
+    private final Interceptor mAttemptInterceptor = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            mAttemptStart.set(System.nanoTime());
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                mAttemptStart.remove();
+            }
+        }
+    };
+
+    private final Interceptor mNetworkInterceptor = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            final Counters counters = countersFor(request);
+            long start = System.nanoTime();
+            mWentToNetwork.set(Boolean.TRUE);
+            counters.requests.incrementAndGet();
+
+            Connection connection = chain.connection();
+            Long attemptStart = mAttemptStart.get();
+            if (null != connection && null == mSeenConnections.put(connection, Boolean.TRUE)) {
+                counters.newConnections.incrementAndGet();
+                if (null != connection.getHandshake()) {
+                    counters.tlsConnections.incrementAndGet();
+                }
+                if (null != attemptStart) {
+                    counters.connectionSetupMs.addAndGet(TimeUnit.NANOSECONDS.toMillis(start - attemptStart));
+                }
+            }
+
+            counters.bytesSent.addAndGet(requestSize(request));
+            Response response = chain.proceed(request);
+            counters.timeToFirstByteMs.addAndGet(elapsedMs(start));
+            counters.bytesReceived.addAndGet(response.headers().toString().length());
+
+            return response.newBuilder()
+                    .body(new MeteredBody(response.body(), new BodyListener() {
+                        @Override
+                        public void onBodyDone(long bytes) {
+                            counters.bytesReceived.addAndGet(bytes);
+                        }
+                    }))
+                    .build();
+        }
+    };
+
+    public Interceptor getCallInterceptor() {
+        return mCallInterceptor;
+    }
+
+    public Interceptor getAttemptInterceptor() {
+        return mAttemptInterceptor;
+    }
+
+    public Interceptor getNetworkInterceptor() {
+        return mNetworkInterceptor;
+    }
+
+    /**
+     * Counts the requests to the host under the name of the service
+     *
+     * @param host        the host name
+     * @param serviceName name of the service that uses the host
+     */
+    public void setServiceName(final String host, final String serviceName) {
+        mServiceNames.put(host, serviceName);
+    }
+
+    /**
+     * @return a copy of the counters, by service name
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshot = new TreeMap<String, Snapshot>();
+        for (Map.Entry<String, Counters> entry : mCounters.entrySet()) {
+            snapshot.put(entry.getKey(), new Snapshot(entry.getValue()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Clears all the counters
+     */
+    public void reset() {
+        mCounters.clear();
+    }
+
+    private Counters countersFor(final Request request) {
+        String host = request.httpUrl().host();
+        String key = mServiceNames.get(host);
+        if (null == key) {
+            key = host;
+        }
+        Counters counters = mCounters.get(key);
+        if (null == counters) {
+            Counters newCounters = new Counters();
+            counters = mCounters.putIfAbsent(key, newCounters);
+            if (null == counters) {
+                counters = newCounters;
+            }
+        }
+        return counters;
+    }
+
+    private static long requestSize(final Request request) throws IOException {
+        // Request line and headers as written on the wire, close enough for http/1.1
+        long size = request.method().length() + request.urlString().length() + 12
+                + request.headers().toString().length();
+        if (null != request.body()) {
+            long contentLength = request.body().contentLength();
+            if (contentLength < 0) {
+                Buffer buffer = new Buffer();
+                request.body().writeTo(buffer);
+                contentLength = buffer.size();
+            }
+            size += contentLength;
+        }
+        return size;
+    }
+
+    private static long elapsedMs(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static class Counters {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong newConnections = new AtomicLong();
+        final AtomicLong tlsConnections = new AtomicLong();
+        final AtomicLong bytesSent = new AtomicLong();
+        final AtomicLong bytesReceived = new AtomicLong();
+        final AtomicLong connectionSetupMs = new AtomicLong();
+        final AtomicLong timeToFirstByteMs = new AtomicLong();
+        final AtomicLong callTimeMs = new AtomicLong();
+    }
+
+    /**
+     * The counters of a service at one point of time
+     */
+    public static class Snapshot {
+        private final long calls;
+        private final long failures;
+        private final long cacheHits;
+        private final long requests;
+        private final long newConnections;
+        private final long tlsConnections;
+        private final long bytesSent;
+        private final long bytesReceived;
+        private final long connectionSetupMs;
+        private final long timeToFirstByteMs;
+        private final long callTimeMs;
+
+        Snapshot(final Counters counters) {
+            calls = counters.calls.get();
+            failures = counters.failures.get();
+            cacheHits = counters.cacheHits.get();
+            requests = counters.requests.get();
+            newConnections = counters.newConnections.get();
+            tlsConnections = counters.tlsConnections.get();
+            bytesSent = counters.bytesSent.get();
+            bytesReceived = counters.bytesReceived.get();
+            connectionSetupMs = counters.connectionSetupMs.get();
+            timeToFirstByteMs = counters.timeToFirstByteMs.get();
+            callTimeMs = counters.callTimeMs.get();
+        }
+
+        /**
+         * @return calls made by the app, including the ones answered from the cache
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * @return requests sent over the network, retries included
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getNewConnections() {
+            return newConnections;
+        }
+
+        public long getTlsConnections() {
+            return tlsConnections;
+        }
+
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        /**
+         * @return total time spent on dns, connect and tls for the new connections
+         */
+        public long getConnectionSetupMs() {
+            return connectionSetupMs;
+        }
+
+        /**
+         * @return total time from sending the requests till their response headers arrived
+         */
+        public long getTimeToFirstByteMs() {
+            return timeToFirstByteMs;
+        }
+
+        /**
+         * @return total time of the calls, till their bodies were read
+         */
+        public long getCallTimeMs() {
+            return callTimeMs;
+        }
+
+        @Override
+        public String toString() {
+            return "calls=" + calls
+                    + " failures=" + failures
+                    + " cacheHits=" + cacheHits
+                    + " requests=" + requests
+                    + " newConnections=" + newConnections
+                    + " tlsConnections=" + tlsConnections
+                    + " bytesSent=" + bytesSent
+                    + " bytesReceived=" + bytesReceived
+                    + " connectionSetupMs=" + connectionSetupMs
+                    + " timeToFirstByteMs=" + timeToFirstByteMs
+                    + " callTimeMs=" + callTimeMs;
+        }
+    }
+
+    private interface BodyListener {
+        void onBodyDone(long bytes);
+    }
+
+    /**
+     * Passes the body through, and reports the bytes read once it is exhausted or closed
+     */
+    private static class MeteredBody extends ResponseBody {
+        private final ResponseBody mBody;
+        private final BodyListener mListener;
+        private BufferedSource mSource;
+
+        MeteredBody(final ResponseBody body, final BodyListener listener) {
+            mBody = body;
+            mListener = listener;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mBody.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return mBody.contentLength();
+        }
+
+        @Override
+        public synchronized BufferedSource source() throws IOException {
+            if (null == mSource) {
+                mSource = Okio.buffer(new ForwardingSource(mBody.source()) {
+                    private long bytesRead;
+                    private boolean done;
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (-1 == read) {
+                            finish();
+                        } else {
+                            bytesRead += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        finish();
+                        super.close();
+                    }
+
+                    private void finish() {
+                        if (!done) {
+                            done = true;
+                            mListener.onBodyDone(bytesRead);
+                        }
+                    }
+                });
+            }
+            return mSource;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpTransport backed by an OkHttpClient. Connect and read timeouts come from the client, while the deadline
+ * for the whole call is enforced here by cancelling calls that run past it.
+ *
+ * @author Midhun
+ */
+public class OkHttpTransport implements HttpTransport {
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Buffers that grew beyond this size for an unusually large page are not kept around
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    private static ScheduledExecutorService sDeadlineTimer;
+
+    private final OkHttpClient mClient;
+    private final long mCallTimeoutMs;
+
+    /**
+     * Calls that are queued or running, mapped to the tag of their request. The dispatcher of the client only knows
+     * about the tags of async calls, blocking calls are cancelled using this map.
+     */
+    private final Map<Call, Object> mActiveCalls = new ConcurrentHashMap<Call, Object>();
+
+    private final ThreadLocal<StringBuilder> mBodyBuffer = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(READ_BUFFER_SIZE);
+        }
+    };
+
+    private final ThreadLocal<char[]> mReadBuffer = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[READ_BUFFER_SIZE];
+        }
+    };
+
+    /**
+     * @param client        the shared client
+     * @param callTimeoutMs deadline for a call, including the time taken to read the body
+     */
+    public OkHttpTransport(final OkHttpClient client, final long callTimeoutMs) {
+        mClient = client;
+        mCallTimeoutMs = callTimeoutMs;
+    }
+
+    @Override
+    public String execute(final Request request) throws IOException {
+        Call call = mClient.newCall(request);
+        Deadline deadline = scheduleDeadline(call);
+        mActiveCalls.put(call, request.tag());
+        try {
+            Response response = call.execute();
+            return readBody(response.body());
+        } catch (IOException e) {
+            throw toFailure(call, deadline, e);
+        } finally {
+            mActiveCalls.remove(call);
+            deadline.cancel();
+        }
+    }
+
+    @Override
+    public StreamingBody open(final Request request) throws IOException {
+        final Call call = mClient.newCall(request);
+        final Deadline deadline = scheduleDeadline(call);
+        mActiveCalls.put(call, request.tag());
+        try {
+            Response response = call.execute();
+            // The deadline stays armed till the caller closes the body
+            return new StreamingBody(response.body(), new Runnable() {
+                @Override
+                public void run() {
+                    mActiveCalls.remove(call);
+                    deadline.cancel();
+                }
+            });
+        } catch (IOException e) {
+            mActiveCalls.remove(call);
+            deadline.cancel();
+            throw toFailure(call, deadline, e);
+        }
+    }
+
+    @Override
+    public Cancellable enqueue(final Request request, final HttpTransport.Callback callback) {
+        final Call call = mClient.newCall(request);
+        final Deadline deadline = scheduleDeadline(call);
+        mActiveCalls.put(call, request.tag());
+        call.enqueue(new com.squareup.okhttp.Callback() {
+            @Override
+            public void onFailure(Request request, IOException e) {
+                mActiveCalls.remove(call);
+                deadline.cancel();
+                callback.onFailure(toFailure(call, deadline, e));
+            }
+
+            @Override
+            public void onResponse(Response response) {
+                String body;
+                try {
+                    body = readBody(response.body());
+                } catch (IOException e) {
+                    callback.onFailure(toFailure(call, deadline, e));
+                    return;
+                } finally {
+                    mActiveCalls.remove(call);
+                    deadline.cancel();
+                }
+                callback.onResponse(body);
+            }
+        });
+
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+                call.cancel();
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return call.isCanceled();
+            }
+        };
+    }
+
+    @Override
+    public void cancel(final Object tag) {
+        for (Map.Entry<Call, Object> entry : mActiveCalls.entrySet()) {
+            if (entry.getValue().equals(tag)) {
+                entry.getKey().cancel();
+            }
+        }
+    }
+
+    @Override
+    public void cancelAll() {
+        for (Call call : mActiveCalls.keySet()) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * @return the number of calls that are queued or running
+     */
+    int getActiveCallCount() {
+        return mActiveCalls.size();
+    }
+
+    /**
+     * Reads the complete body into the buffer owned by the calling thread, instead of building it up line by line
+     */
+    private String readBody(final ResponseBody body) throws IOException {
+        StringBuilder builder = mBodyBuffer.get();
+        char[] readBuffer = mReadBuffer.get();
+        Reader reader = body.charStream();
+        try {
+            builder.setLength(0);
+            int count;
+            while ((count = reader.read(readBuffer)) != -1) {
+                builder.append(readBuffer, 0, count);
+            }
+            return builder.toString();
+        } finally {
+            reader.close();
+            builder.setLength(0);
+            if (builder.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                // trimToSize on an empty builder would leave nothing to reuse
+                mBodyBuffer.set(new StringBuilder(MAX_RETAINED_BUFFER_SIZE));
+            }
+        }
+    }
+
+    private Deadline scheduleDeadline(final Call call) {
+        Deadline deadline = new Deadline(call);
+        deadline.mTimer = getDeadlineTimer().schedule(deadline, mCallTimeoutMs, TimeUnit.MILLISECONDS);
+        return deadline;
+    }
+
+    /**
+     * Tells a call cancelled for running past its deadline from one cancelled by the app
+     */
+    private IOException toFailure(final Call call, final Deadline deadline, final IOException e) {
+        if (!call.isCanceled()) {
+            return e;
+        }
+        if (deadline.hasExpired()) {
+            InterruptedIOException timeout = new InterruptedIOException(
+                    "call exceeded the deadline of " + mCallTimeoutMs + " ms");
+            timeout.initCause(e);
+            return timeout;
+        }
+        return new CallCanceledException(e);
+    }
+
+    private static synchronized ScheduledExecutorService getDeadlineTimer() {
+        if (null == sDeadlineTimer) {
+            sDeadlineTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "OkHttpTransport-Deadline");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDeadlineTimer;
+    }
+
+    /**
+     * Cancels a call that runs past its deadline. The expiry is noted before the call is cancelled, as the thread
+     * of the call may see the failure before the timer task has returned.
+     */
+    private static class Deadline implements Runnable {
+        private final Call mCall;
+        private volatile boolean mExpired;
+        private volatile ScheduledFuture<?> mTimer;
+
+        Deadline(final Call call) {
+            mCall = call;
+        }
+
+        @Override
+        public void run() {
+            mExpired = true;
+            mCall.cancel();
+        }
+
+        boolean hasExpired() {
+            return mExpired;
+        }
+
+        void cancel() {
+            mTimer.cancel(false);
+        }
+    }
+}
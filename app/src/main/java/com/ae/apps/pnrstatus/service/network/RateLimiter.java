@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that limits the rate of requests to a host. The bucket holds up to burst tokens and is refilled at
+ * the configured rate. A request that finds the bucket empty is not rejected, it reserves the next token and waits
+ * for it. Reservations are handed out in order, so waiting requests are released first in first out.
+ *
+ * @author Midhun
+ */
+public class RateLimiter {
+
+    private final double mIntervalNanos;
+    private final int mBurst;
+
+    private double mStoredTokens;
+
+    /**
+     * Time at which the next token can be handed out without waiting
+     */
+    private long mNextFreeNanos;
+
+    /**
+     * @param permitsPerSecond the rate at which tokens are added
+     * @param burst            the maximum number of tokens stored, also the number of requests that can go at once
+     */
+    public RateLimiter(final double permitsPerSecond, final int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate " + permitsPerSecond + " or burst " + burst);
+        }
+        mIntervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        mBurst = burst;
+        mStoredTokens = burst;
+        mNextFreeNanos = nowNanos();
+    }
+
+    /**
+     * Takes a token, waiting till one is available
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Reserves the next token
+     *
+     * @return the time in nanoseconds after which the reserved token can be used
+     */
+    synchronized long reserve() {
+        long now = nowNanos();
+        if (now > mNextFreeNanos) {
+            // Refill the bucket for the time that it was not in use
+            mStoredTokens = Math.min(mBurst, mStoredTokens + (now - mNextFreeNanos) / mIntervalNanos);
+            mNextFreeNanos = now;
+        }
+        long waitNanos = mNextFreeNanos - now;
+
+        double storedTokensUsed = Math.min(1, mStoredTokens);
+        mStoredTokens -= storedTokensUsed;
+        mNextFreeNanos += (long) ((1 - storedTokensUsed) * mIntervalNanos);
+        return waitNanos;
+    }
+
+    /**
+     * @return the current time in nanoseconds, overridden in tests
+     */
+    protected long nowNanos() {
+        return System.nanoTime();
+    }
+
+    protected void sleep(final long nanos) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable, prebuilt form POST to a provider. The url, the headers and the encoded form params that never
+ * change are prepared once, so each lookup only has to encode its own values.
+ *
+ * @author Midhun
+ */
+public final class RequestTemplate {
+
+    private static final MediaType WEB_FORM = MediaType.parse("application/x-www-form-urlencoded");
+    private static final String CHARSET = "UTF-8";
+
+    private final HttpUrl mUrl;
+    private final Headers mHeaders;
+
+    /**
+     * The encoded fixed params, followed by the name of the first variable param
+     */
+    private final byte[] mBodyPrefix;
+
+    /**
+     * The separator and name to write before each of the other variable params
+     */
+    private final byte[][] mVariableNames;
+    private final int mVariableCount;
+
+    private RequestTemplate(final HttpUrl url, final Headers headers, final byte[] bodyPrefix,
+                            final byte[][] variableNames, final int variableCount) {
+        mUrl = url;
+        mHeaders = headers;
+        mBodyPrefix = bodyPrefix;
+        mVariableNames = variableNames;
+        mVariableCount = variableCount;
+    }
+
+    /**
+     * Creates a template for a form POST
+     *
+     * @param url            the url to post to
+     * @param headers        request headers, can be null
+     * @param fixedParams    form params that are the same for every request, can be null
+     * @param variableParams names of the form params whose values are given for each request
+     * @return the template
+     */
+    public static RequestTemplate forPost(final String url,
+                                          final Map<String, String> headers,
+                                          final Map<String, String> fixedParams,
+                                          final String... variableParams) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (null == httpUrl) {
+            throw new IllegalArgumentException("Invalid url " + url);
+        }
+
+        Map<String, String> headerMap = null != headers ? headers : Collections.<String, String>emptyMap();
+        Headers.Builder headersBuilder = new Headers.Builder();
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            headersBuilder.add(header.getKey(), header.getValue());
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        if (null != fixedParams) {
+            for (Map.Entry<String, String> param : fixedParams.entrySet()) {
+                appendParam(prefix, param.getKey()).append(encode(param.getValue()));
+            }
+        }
+        byte[][] variableNames = new byte[Math.max(0, variableParams.length - 1)][];
+        for (int i = 0; i < variableParams.length; i++) {
+            if (0 == i) {
+                appendParam(prefix, variableParams[i]);
+            } else {
+                variableNames[i - 1] = toBytes('&' + encode(variableParams[i]) + '=');
+            }
+        }
+
+        return new RequestTemplate(httpUrl, headersBuilder.build(), toBytes(prefix.toString()), variableNames,
+                variableParams.length);
+    }
+
+    /**
+     * Creates the request for the values
+     *
+     * @param tag    tag for the request, can be null
+     * @param values values of the variable params, in the order they were declared
+     * @return the request
+     */
+    public Request newRequest(final Object tag, final String... values) {
+        return newRequestTo(mUrl, tag, values);
+    }
+
+    /**
+     * Creates the request for the values, sent to another url than the one in the template
+     *
+     * @param url    the url to post to
+     * @param tag    tag for the request, can be null
+     * @param values values of the variable params, in the order they were declared
+     * @return the request
+     */
+    public Request newRequestTo(final HttpUrl url, final Object tag, final String... values) {
+        if (values.length != mVariableCount) {
+            throw new IllegalArgumentException("Expected " + mVariableCount + " values, got " + values.length);
+        }
+
+        byte[][] encodedValues = new byte[values.length][];
+        int length = mBodyPrefix.length;
+        for (int i = 0; i < values.length; i++) {
+            encodedValues[i] = toBytes(encode(values[i]));
+            length += encodedValues[i].length;
+            if (i > 0) {
+                length += mVariableNames[i - 1].length;
+            }
+        }
+
+        byte[] body = new byte[length];
+        System.arraycopy(mBodyPrefix, 0, body, 0, mBodyPrefix.length);
+        int position = mBodyPrefix.length;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                byte[] name = mVariableNames[i - 1];
+                System.arraycopy(name, 0, body, position, name.length);
+                position += name.length;
+            }
+            System.arraycopy(encodedValues[i], 0, body, position, encodedValues[i].length);
+            position += encodedValues[i].length;
+        }
+
+        return new Request.Builder()
+                .url(url)
+                .headers(mHeaders)
+                .post(RequestBody.create(WEB_FORM, body))
+                .tag(tag)
+                .build();
+    }
+
+    private static StringBuilder appendParam(final StringBuilder builder, final String name) {
+        if (builder.length() > 0) {
+            builder.append('&');
+        }
+        return builder.append(encode(name)).append('=');
+    }
+
+    private static String encode(final String value) {
+        try {
+            // Spaces are sent as %20, the same as the form bodies built by OkHttp
+            return URLEncoder.encode(String.valueOf(value), CHARSET).replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] toBytes(final String value) {
+        try {
+            return value.getBytes(CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
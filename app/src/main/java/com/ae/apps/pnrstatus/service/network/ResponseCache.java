@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Keeps the successful responses from the providers on disk for a short while, so that looking up the same pnr
+ * again soon after is answered without going to the network. Entries are keyed by the method, url and body of
+ * the request, since the providers take the pnr number in a POST body. Each host has its own freshness window and
+ * media type; hosts without one are not cached. A response is stored only when it is a 200 of the media type of its
+ * host, which is checked before the body is read. Requests that ask for no-store, like the streamed lookups, are
+ * passed through unbuffered. When the cache grows beyond its size, the oldest entries are removed.
+ *
+ * @author Midhun
+ */
+public class ResponseCache implements Interceptor {
+
+    /**
+     * Media types of the provider responses
+     */
+    public static final String HTML = "text/html";
+    public static final String JSON = "application/json";
+
+    private static final int HTTP_OK = 200;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final ConcurrentMap<String, Long> mTtls = new ConcurrentHashMap<String, Long>();
+    private final ConcurrentMap<String, String> mMediaTypes = new ConcurrentHashMap<String, String>();
+
+    private volatile File mDirectory;
+    private volatile long mMaxSize;
+
+    /**
+     * Sets how long the responses from the host stay fresh
+     *
+     * @param host      the host name
+     * @param ttlMs     the freshness window in milliseconds, 0 to not cache the host
+     * @param mediaType type and subtype of the responses that hold a status, like text/html
+     */
+    public void setTtl(final String host, final long ttlMs, final String mediaType) {
+        mMediaTypes.put(host, mediaType);
+        mTtls.put(host, ttlMs);
+    }
+
+    /**
+     * Starts caching into the directory. Till this is called requests pass through.
+     *
+     * @param directory directory for the cache entries, created if it does not exist
+     * @param maxSize   size in bytes that the entries may take up
+     */
+    public void open(final File directory, final long maxSize) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        mMaxSize = maxSize;
+        mDirectory = directory;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        File directory = mDirectory;
+        String host = request.httpUrl().host();
+        Long ttlMs = mTtls.get(host);
+        String mediaType = mMediaTypes.get(host);
+        if (null == directory || null == ttlMs || ttlMs <= 0 || null == mediaType) {
+            return chain.proceed(request);
+        }
+
+        File entry = new File(directory, key(request));
+        Response cached = read(request, entry, ttlMs);
+        if (null != cached) {
+            return cached;
+        }
+
+        Response response = chain.proceed(request);
+        MediaType contentType = response.body().contentType();
+        if (HTTP_OK != response.code() || request.cacheControl().noStore() || !isType(contentType, mediaType)) {
+            return response;
+        }
+
+        // The body has to be read fully to store it, hand out the buffered copy
+        byte[] body = response.body().bytes();
+        write(directory, entry, contentType, body);
+        return response.newBuilder()
+                .body(ResponseBody.create(contentType, body))
+                .build();
+    }
+
+    private Response read(final Request request, final File entry, final long ttlMs) {
+        if (!entry.isFile()) {
+            return null;
+        }
+        long age = System.currentTimeMillis() - entry.lastModified();
+        if (age >= ttlMs || age < 0) {
+            entry.delete();
+            return null;
+        }
+
+        BufferedSource source = null;
+        try {
+            source = Okio.buffer(Okio.source(entry));
+            String contentType = source.readUtf8LineStrict();
+            byte[] body = source.readByteArray();
+            return new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(HTTP_OK)
+                    .message("OK")
+                    .body(ResponseBody.create(
+                            contentType.isEmpty() ? null : MediaType.parse(contentType), body))
+                    .build();
+        } catch (IOException e) {
+            // Removed or half written, go to the network instead
+            return null;
+        } finally {
+            closeQuietly(source);
+        }
+    }
+
+    private void write(final File directory, final File entry, final MediaType contentType, final byte[] body) {
+        OutputStream out = null;
+        File temp = null;
+        try {
+            // Written to a temporary file first, so that readers never see a partial entry
+            temp = File.createTempFile(entry.getName(), TEMP_FILE_SUFFIX, directory);
+            out = new FileOutputStream(temp);
+            out.write((null != contentType ? contentType.toString() : "").getBytes("UTF-8"));
+            out.write('\n');
+            out.write(body);
+            out.close();
+            out = null;
+            if (!temp.renameTo(entry)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            if (null != temp) {
+                temp.delete();
+            }
+        } finally {
+            closeQuietly(out);
+        }
+        evict(directory);
+    }
+
+    /**
+     * Removes the oldest entries till the cache fits in its size
+     */
+    private synchronized void evict(final File directory) {
+        File[] files = directory.listFiles();
+        if (null == files) {
+            return;
+        }
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= mMaxSize) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsModified = lhs.lastModified();
+                long rhsModified = rhs.lastModified();
+                return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (size <= mMaxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private static boolean isType(final MediaType contentType, final String mediaType) {
+        return null != contentType
+                && mediaType.equalsIgnoreCase(contentType.type() + "/" + contentType.subtype());
+    }
+
+    private static String key(final Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        buffer.writeUtf8(request.method())
+                .writeUtf8(" ")
+                .writeUtf8(request.urlString())
+                .writeUtf8("\n");
+        if (null != request.body()) {
+            request.body().writeTo(buffer);
+        }
+        return buffer.readByteString().md5().hex();
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (null != closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Ignored
+            }
+        }
+    }
+}
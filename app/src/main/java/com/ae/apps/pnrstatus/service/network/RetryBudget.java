@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+/**
+ * Limits retries to a fraction of the requests made. Every request adds a part of a token to the budget and every
+ * retry takes out a whole one. When a host is down, most requests fail and the budget runs dry, so the retries stop
+ * instead of multiplying the load.
+ *
+ * @author Midhun
+ */
+public class RetryBudget {
+
+    private final double mTokensPerRequest;
+    private final double mMaxTokens;
+
+    private double mTokens;
+
+    /**
+     * @param retryRatio fraction of the requests that may be retried over time
+     * @param maxTokens  number of retries that can be saved up while things go well
+     */
+    public RetryBudget(final double retryRatio, final int maxTokens) {
+        mTokensPerRequest = retryRatio;
+        mMaxTokens = maxTokens;
+        mTokens = maxTokens;
+    }
+
+    public synchronized void onRequest() {
+        mTokens = Math.min(mMaxTokens, mTokens + mTokensPerRequest);
+    }
+
+    /**
+     * @return true if there is budget left for a retry, which is then taken out of it
+     */
+    public synchronized boolean tryRetry() {
+        if (mTokens >= 1) {
+            mTokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.ae.apps.pnrstatus.utils.AppConstants;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Retries requests that failed for a transient reason, following the RetryPolicy of the host. Failures where the
+ * request never reached the server are always retried. Timeouts and other failures before the response headers
+ * arrive, and the 502, 503 and 504 responses, are retried only for requests that are safe to send again. The body
+ * is read after this interceptor has returned, so a failure while reading it is not retried here. Every retry has
+ * to fit in the RetryBudget shared by all the hosts.
+ *
+ * @author Midhun
+ */
+public class RetryInterceptor implements Interceptor {
+
+    private static final int HTTP_BAD_GATEWAY = 502;
+    private static final int HTTP_UNAVAILABLE = 503;
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    /**
+     * OkHttp fails a cancelled call with an IOException carrying this message
+     */
+    private static final String MESSAGE_CANCELED = "Canceled";
+
+    private final ConcurrentMap<String, RetryPolicy> mPolicies = new ConcurrentHashMap<String, RetryPolicy>();
+    private final RetryPolicy mDefaultPolicy;
+    private final RetryBudget mBudget;
+    private final Random mRandom = new Random();
+
+    /**
+     * @param defaultPolicy policy for the hosts without one of their own
+     * @param budget        the budget for the retries of all the hosts
+     */
+    public RetryInterceptor(final RetryPolicy defaultPolicy, final RetryBudget budget) {
+        mDefaultPolicy = defaultPolicy;
+        mBudget = budget;
+    }
+
+    public void setPolicy(final String host, final RetryPolicy policy) {
+        mPolicies.put(host, policy);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RetryPolicy policy = mPolicies.get(request.httpUrl().host());
+        if (null == policy) {
+            policy = mDefaultPolicy;
+        }
+        String method = request.method();
+        boolean safeToRepeat = AppConstants.METHOD_GET.equals(method) || AppConstants.METHOD_HEAD.equals(method)
+                || (AppConstants.METHOD_POST.equals(method) && policy.isPostRetryable());
+
+        mBudget.onRequest();
+        int attempt = 1;
+        while (true) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (!isRetryable(e, safeToRepeat) || !canRetry(policy, attempt)) {
+                    throw e;
+                }
+                backoff(policy, attempt++);
+                continue;
+            }
+
+            if (!isRetryable(response, safeToRepeat) || !canRetry(policy, attempt)) {
+                return response;
+            }
+            response.body().close();
+            backoff(policy, attempt++);
+        }
+    }
+
+    private boolean isRetryable(final IOException e, final boolean safeToRepeat) {
+        if (Thread.currentThread().isInterrupted() || MESSAGE_CANCELED.equals(e.getMessage())) {
+            // Someone gave up on this request
+            return false;
+        }
+        if (e instanceof ConnectException || e instanceof UnknownHostException
+                || e instanceof NoRouteToHostException) {
+            // The request did not reach the server
+            return true;
+        }
+        return safeToRepeat;
+    }
+
+    private boolean isRetryable(final Response response, final boolean safeToRepeat) {
+        int code = response.code();
+        return safeToRepeat
+                && (HTTP_BAD_GATEWAY == code || HTTP_UNAVAILABLE == code || HTTP_GATEWAY_TIMEOUT == code);
+    }
+
+    private boolean canRetry(final RetryPolicy policy, final int attempt) {
+        return attempt < policy.getMaxAttempts() && mBudget.tryRetry();
+    }
+
+    private void backoff(final RetryPolicy policy, final int retry) throws InterruptedIOException {
+        try {
+            Thread.sleep(policy.getBackoffMs(retry, mRandom));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
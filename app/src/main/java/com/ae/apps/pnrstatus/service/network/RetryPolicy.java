@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import java.util.Random;
+
+/**
+ * How the requests to a host are retried. The delay before each retry is picked at random between zero and an
+ * exponentially growing cap (full jitter), so that clients that failed together do not retry together.
+ *
+ * @author Midhun
+ */
+public class RetryPolicy {
+
+    private static final long DEFAULT_BASE_DELAY_MS = 250;
+    private static final long DEFAULT_MAX_DELAY_MS = 4000;
+
+    private final int mMaxAttempts;
+    private final long mBaseDelayMs;
+    private final long mMaxDelayMs;
+    private final boolean mPostRetryable;
+
+    /**
+     * @param maxAttempts   number of attempts including the first one
+     * @param postRetryable true if the POST requests to the host only read data, and so are safe to send again
+     */
+    public RetryPolicy(final int maxAttempts, final boolean postRetryable) {
+        this(maxAttempts, DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, postRetryable);
+    }
+
+    /**
+     * @param maxAttempts   number of attempts including the first one
+     * @param baseDelayMs   cap on the delay before the first retry, doubled for every further retry
+     * @param maxDelayMs    upper limit for the cap
+     * @param postRetryable true if the POST requests to the host only read data, and so are safe to send again
+     */
+    public RetryPolicy(final int maxAttempts, final long baseDelayMs, final long maxDelayMs,
+                       final boolean postRetryable) {
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMs = baseDelayMs;
+        mMaxDelayMs = maxDelayMs;
+        mPostRetryable = postRetryable;
+    }
+
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    public boolean isPostRetryable() {
+        return mPostRetryable;
+    }
+
+    /**
+     * @param retry  the number of the retry, 1 for the first
+     * @param random source of the jitter
+     * @return the time to wait before the retry, in milliseconds
+     */
+    public long getBackoffMs(final int retry, final Random random) {
+        long cap = mBaseDelayMs << Math.min(retry - 1, 16);
+        if (cap <= 0 || cap > mMaxDelayMs) {
+            cap = mMaxDelayMs;
+        }
+        return (long) (random.nextDouble() * cap);
+    }
+}
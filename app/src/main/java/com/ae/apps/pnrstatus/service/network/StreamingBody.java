@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.ResponseBody;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * A response body that is read while it is still being downloaded. The parser can close it as soon as it has
+ * read the part it needs, which also releases the underlying connection.
+ *
+ * @author Midhun
+ */
+public class StreamingBody implements Closeable {
+
+    private final ResponseBody mBody;
+    private final Runnable mOnClose;
+
+    public StreamingBody(final ResponseBody body) {
+        this(body, null);
+    }
+
+    /**
+     * @param body    the body of the response
+     * @param onClose invoked when the body is closed, to release what the transport holds for the call
+     */
+    StreamingBody(final ResponseBody body, final Runnable onClose) {
+        mBody = body;
+        mOnClose = onClose;
+    }
+
+    /**
+     * @return a reader over the body, decoded using the charset of the response
+     */
+    public Reader charStream() throws IOException {
+        return mBody.charStream();
+    }
+
+    /**
+     * @return the raw bytes of the body
+     */
+    public InputStream byteStream() throws IOException {
+        return mBody.byteStream();
+    }
+
+    @Override
+    public void close() {
+        if (null != mOnClose) {
+            mOnClose.run();
+        }
+        try {
+            mBody.close();
+        } catch (IOException e) {
+            // Nothing more to read from this body anyway
+        }
+    }
+}
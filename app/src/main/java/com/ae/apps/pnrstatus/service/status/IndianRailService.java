@@ -26,17 +26,27 @@ package com.ae.apps.pnrstatus.service.status;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
 import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
-import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
 import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.network.EndpointCache;
+import com.ae.apps.pnrstatus.service.network.RequestTemplate;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
+import com.ae.apps.pnrstatus.service.network.StreamingBody;
 import com.ae.apps.pnrstatus.utils.AppConstants;
 import com.ae.apps.pnrstatus.utils.Logger;
 import com.ae.apps.pnrstatus.utils.PNRUtils;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 import com.ae.apps.pnrstatus.vo.PassengerDataVo;
+import com.ae.apps.pnrstatus.vo.StatusResultVo;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.ae.apps.pnrstatus.utils.AppConstants.TAG;
 
@@ -45,7 +55,7 @@ import static com.ae.apps.pnrstatus.utils.AppConstants.TAG;
  *
  * @author midhun_harikumar
  */
-public class IndianRailService implements IStatusService {
+public class IndianRailService extends AbstractStatusService {
 
     private static final String SEPARATOR_COMMA = ",";
     private static final String PARAM_REFERER = "Referer";
@@ -60,13 +70,51 @@ public class IndianRailService implements IStatusService {
     private static final String PNR_ENQ_URL = "http://www.indianrail.gov.in/pnr_Enq.html";
     private static final String SERVICE_NAME = "IndianRail";
 
-    private static String mServiceUrl = null;
+    /**
+     * Each lookup makes up to two requests to indianrail.gov.in
+     */
+    private static final double RATE_LIMIT_PER_SECOND = 1.0;
+    private static final int RATE_LIMIT_BURST = 4;
+
+    /**
+     * Attempts made for a lookup. The lookup form only reads data, so its POST is safe to repeat
+     */
+    private static final int RETRY_MAX_ATTEMPTS = 3;
+
+    static {
+        // No cache ttl, every lookup posts a new captcha and so never repeats a request
+        configureHost(PNR_ENQ_URL, SERVICE_NAME, RATE_LIMIT_PER_SECOND, RATE_LIMIT_BURST,
+                new RetryPolicy(RETRY_MAX_ATTEMPTS, true), 0, null);
+    }
+
+    /**
+     * The form action for the enquiry changes now and then, it is discovered again after this time
+     */
+    private static final long SERVICE_URL_TTL_MS = TimeUnit.HOURS.toMillis(6);
+
+    /**
+     * The discovered url, kept by the instance that StatusServiceFactory reuses for every lookup
+     */
+    private final EndpointCache serviceUrlCache = new EndpointCache(SERVICE_URL_TTL_MS);
+
+    /**
+     * The enquiry form, posted to the url discovered from the enquiry page
+     */
+    private static final RequestTemplate REQUEST_TEMPLATE = RequestTemplate.forPost(PNR_ENQ_URL,
+            Collections.singletonMap(PARAM_REFERER, REFERRER_URL),
+            Collections.singletonMap(PARAM_SUBMIT, SUBMIT_VALUE),
+            PARAM_PNR, PARAM_CAPTCHA, PARAM_CAPTCHA_INPUT);
 
     @Override
     public String getServiceName() {
         return SERVICE_NAME;
     }
 
+    @Override
+    public String getBaseUrl() {
+        return PNR_ENQ_URL;
+    }
+
     @Override
     public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
         PNRStatusVo pnrStatusVo;
@@ -88,47 +136,86 @@ public class IndianRailService implements IStatusService {
         // Here, ahem we generate a random captcha for the server
         String randomCaptcha = getRandomCaptcha();
 
-        // Create the headers and params for request
-        HashMap<String, String> params = new HashMap<String, String>();
-        HashMap<String, String> headers = new HashMap<String, String>();
-
-        // Creating the headers
-        headers.put(PARAM_REFERER, REFERRER_URL);
-
-        // Create the parameters for the request
-        params.put(PARAM_PNR, pnrNumber);
-        params.put(PARAM_SUBMIT, SUBMIT_VALUE);
-        params.put(PARAM_CAPTCHA, randomCaptcha);
-        params.put(PARAM_CAPTCHA_INPUT, randomCaptcha);
-
-        // invoke the post method and get the response
-        String webResponse = null;
+        // invoke the post method and parse the response while it is downloaded
+        StreamingBody body = null;
         try {
-            if (mServiceUrl == null) {
-                // we should fire a request to find the current url used for PNR Enquiry
-                webResponse = NetworkService.getInstance().doGetRequest(PNR_ENQ_URL);
-                mServiceUrl = getServiceUrl(webResponse);
-            }
-            // See if we got the url for accessing the service
-            if (mServiceUrl == null) {
-                throw new RuntimeException("service url is null for indian rail service");
-            }
+            String serviceUrl = resolveServiceUrl();
 
             // now, fire the request for finding the pnrstatus
-            webResponse = NetworkService.getInstance().doPostRequest(mServiceUrl, headers, params);
-            if (webResponse == null) {
-                throw new StatusException("responseObject is null", ErrorCodes.EMPTY_RESPONSE);
+            try {
+                body = NetworkService.getInstance().doPostStream(serviceUrl, REQUEST_TEMPLATE,
+                        pnrNumber, randomCaptcha, randomCaptcha);
+            } catch (StatusException e) {
+                if (ErrorCodes.URL_ERROR == e.getErrorCode()) {
+                    // The form might have moved, look it up again the next time
+                    serviceUrlCache.invalidate(PNR_ENQ_URL, serviceUrl);
+                }
+                throw e;
+            }
+            List<String> elements;
+            try {
+                elements = PNRUtils.parseIndianRailHtml(body.charStream());
+            } catch (IOException e) {
+                throw new StatusException(e.getMessage(), e, ErrorCodes.URL_ERROR);
+            } catch (Exception e) {
+                // If PNR Number is invalid, we might get an exception while parsing
+                throw new StatusException("Unable to Parse the response", ErrorCodes.PARSE_ERROR);
             }
-            Logger.d(TAG, webResponse);
+            return createStatusVo(elements);
         } catch (StatusException e) {
             throw e;
         } catch (Exception e) {
             throw new StatusException(e.getMessage(), e);
+        } finally {
+            if (null != body) {
+                body.close();
+            }
         }
+    }
 
-        Logger.d(TAG, "WebResultResponse length : " + webResponse.length());
+    /**
+     * Finds the enquiry url once for the whole batch. When it can not be found every pnr fails with that error
+     * right away, instead of each lookup fetching the enquiry page again.
+     */
+    @Override
+    public Map<String, StatusResultVo> getResponses(Collection<String> pnrNumbers) {
+        try {
+            resolveServiceUrl();
+        } catch (StatusException e) {
+            Map<String, StatusResultVo> results = new LinkedHashMap<String, StatusResultVo>();
+            for (String pnrNumber : pnrNumbers) {
+                results.put(pnrNumber, new StatusResultVo(pnrNumber, e));
+            }
+            return results;
+        }
+        return super.getResponses(pnrNumbers);
+    }
 
-        return parseResponse(webResponse);
+    /**
+     * Returns the url that the enquiry form posts to, fetching the enquiry page only if it is not known already
+     *
+     * @return the url for the pnr enquiry
+     * @throws StatusException if the url could not be found
+     */
+    private String resolveServiceUrl() throws StatusException {
+        String serviceUrl = serviceUrlCache.get(PNR_ENQ_URL);
+        if (null != serviceUrl) {
+            return serviceUrl;
+        }
+        synchronized (serviceUrlCache) {
+            // Another lookup may have found it while this one was waiting
+            serviceUrl = serviceUrlCache.get(PNR_ENQ_URL);
+            if (null == serviceUrl) {
+                // we should fire a request to find the current url used for PNR Enquiry
+                String webResponse = NetworkService.getInstance().doGetRequest(PNR_ENQ_URL);
+                serviceUrl = parseServiceUrl(webResponse);
+                if (null == serviceUrl) {
+                    throw new StatusException("service url is null for indian rail service", ErrorCodes.PARSE_ERROR);
+                }
+                serviceUrlCache.put(PNR_ENQ_URL, serviceUrl);
+            }
+        }
+        return serviceUrl;
     }
 
     /**
@@ -139,7 +226,6 @@ public class IndianRailService implements IStatusService {
      * @throws StatusException
      */
     private PNRStatusVo parseResponse(String html) throws StatusException {
-        PNRStatusVo pnrStatusVo = new PNRStatusVo();
         List<String> elements;
         try {
             elements = PNRUtils.parseIndianRailHtml(html);
@@ -147,7 +233,18 @@ public class IndianRailService implements IStatusService {
             // If PNR Number is invalid, we might get an exception while parsing
             throw new StatusException("Unable to Parse the response", ErrorCodes.PARSE_ERROR);
         }
+        return createStatusVo(elements);
+    }
 
+    /**
+     * Create the PNRStatusVo object from the elements parsed from the response html
+     *
+     * @param elements
+     * @return
+     * @throws StatusException
+     */
+    private PNRStatusVo createStatusVo(List<String> elements) throws StatusException {
+        PNRStatusVo pnrStatusVo = new PNRStatusVo();
         Logger.d(TAG, "elements in parsed response : " + elements.size());
 
         int infoDataCount = 8;
@@ -210,14 +307,21 @@ public class IndianRailService implements IStatusService {
 
     /**
      * @param response
-     * @return
+     * @return the action of the enquiry form, null if the page does not have it
      */
-    private String getServiceUrl(String response) {
+    private String parseServiceUrl(String response) {
         // response =
         // "<form id=\"form3\" name=\"pnr_stat\" method=\"post\" action=\"http://www.indianrail.gov.in/cgi_bin/inet_pnstat_cgi_26163.cgi\" onsubmit=\"return checkform(this);\"> ";
-        int startIndex = response.indexOf("action=") + 8;
-        int endIndex = response.indexOf(".cgi", startIndex) + 4;
-        return response.substring(startIndex, endIndex);
+        int actionIndex = response.indexOf("action=");
+        if (actionIndex < 0) {
+            return null;
+        }
+        int startIndex = actionIndex + 8;
+        int endIndex = response.indexOf(".cgi", startIndex);
+        if (endIndex < 0) {
+            return null;
+        }
+        return response.substring(startIndex, endIndex + 4);
     }
 
     private String getRandomCaptcha() {
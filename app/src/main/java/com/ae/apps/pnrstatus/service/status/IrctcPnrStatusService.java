@@ -26,14 +26,18 @@ package com.ae.apps.pnrstatus.service.status;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
 import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
-import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.AsyncRequest;
 import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.network.RequestTemplate;
+import com.ae.apps.pnrstatus.service.network.ResponseCache;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
 import com.ae.apps.pnrstatus.utils.AppConstants;
 import com.ae.apps.pnrstatus.utils.Logger;
 import com.ae.apps.pnrstatus.utils.PNRUtils;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 
-import java.util.HashMap;
+import java.util.Collections;
 
 /**
  * Unofficial service that consumes IRCTC PNR Status Service to fetch the PNR Status for us
@@ -41,33 +45,57 @@ import java.util.HashMap;
  * @author Midhun
  *
  */
-public class IrctcPnrStatusService implements IStatusService {
+public class IrctcPnrStatusService extends AbstractStatusService {
 
 	private static final String	SERVICE_NAME	= "IRCTC-PNR-Status";
 	private static final String	PARAM_PNR		= "pnr";
 	private static final String	CONTENT_TYPE	= "Content-Type";
 	private static final String	SERVICE_URL		= "http://irctc-pnr-status.com/status/pnr_data";
+
+	/**
+	 * Rate at which requests are sent to irctc-pnr-status.com
+	 */
+	private static final double	RATE_LIMIT_PER_SECOND	= 1.0;
+	private static final int	RATE_LIMIT_BURST		= 3;
+
+	/**
+	 * Attempts made for a lookup. The lookup form only reads data, so its POST is safe to repeat
+	 */
+	private static final int	RETRY_MAX_ATTEMPTS		= 3;
+
+	static {
+		configureHost(SERVICE_URL, SERVICE_NAME, RATE_LIMIT_PER_SECOND, RATE_LIMIT_BURST,
+				new RetryPolicy(RETRY_MAX_ATTEMPTS, true), RESPONSE_CACHE_TTL_MS, ResponseCache.HTML);
+	}
+
+	private static final RequestTemplate	REQUEST_TEMPLATE	= RequestTemplate.forPost(SERVICE_URL,
+			Collections.singletonMap(CONTENT_TYPE, "application/x-www-form-urlencoded"), null, PARAM_PNR);
+
+	private static final AsyncRequest ASYNC_REQUEST = new PostRequest(REQUEST_TEMPLATE) {
+		@Override
+		public PNRStatusVo parse(String response) throws StatusException {
+			return parseResponse(response);
+		}
+	};
 	
 	@Override
 	public String getServiceName() {
 		return SERVICE_NAME;
 	}
 
+	@Override
+	public String getBaseUrl() {
+		return SERVICE_URL;
+	}
+
 	@Override
 	public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
 		Logger.i(AppConstants.TAG, "Using " + getServiceName());
 
 		PNRStatusVo pnrStatusVo;
 
-		// Create the headers and params for request
-		HashMap<String, String> params = new HashMap();
-		HashMap<String, String> headers = new HashMap();
-
-		headers.put(CONTENT_TYPE, "application/x-www-form-urlencoded");
-		params.put(PARAM_PNR, pnrNumber);
-
 		try {
-			String response = NetworkService.getInstance().doPostRequest(SERVICE_URL, headers, params);
+			String response = NetworkService.getInstance().doPostRequest(REQUEST_TEMPLATE, pnrNumber);
 			if (response == null) {
 				throw new StatusException("responseObject is null", ErrorCodes.EMPTY_RESPONSE);
 			}
@@ -79,6 +107,11 @@ public class IrctcPnrStatusService implements IStatusService {
 
 	}
 
+	@Override
+	protected AsyncRequest getAsyncRequest() {
+		return ASYNC_REQUEST;
+	}
+
 	@Override
 	public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
 		PNRStatusVo statusVo;
@@ -96,7 +129,7 @@ public class IrctcPnrStatusService implements IStatusService {
 		return statusVo;
 	}
 	
-	private PNRStatusVo parseResponse(String html) throws StatusException {
+	private static PNRStatusVo parseResponse(String html) throws StatusException {
 		return PNRUtils.parseIrctcPnrStatusResponse(html);
 	}
 
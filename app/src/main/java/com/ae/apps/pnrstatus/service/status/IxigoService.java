@@ -24,7 +24,6 @@
 
 package com.ae.apps.pnrstatus.service.status;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,25 +35,62 @@ import org.json.JSONTokener;
 import android.util.Log;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
-import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.AsyncRequest;
+import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.network.ResponseCache;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
 import com.ae.apps.pnrstatus.utils.AppConstants;
 import com.ae.apps.pnrstatus.utils.PNRUtils;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 import com.ae.apps.pnrstatus.vo.PassengerDataVo;
 
-public class IxigoService implements IStatusService {
+public class IxigoService extends AbstractStatusService {
 
 	/**
 	 * The URL for IXIGO Service
 	 */
-	private final String	url			= "http://216.139.222.96:80/train/pnr_status";
-	private final String	serviceName	= "IXIGO Service";
+	private static final String	url		= "http://216.139.222.96:80/train/pnr_status";
+	private static final String	serviceName	= "IXIGO Service";
+
+	/**
+	 * Rate at which requests are sent to the ixigo server
+	 */
+	private static final double	RATE_LIMIT_PER_SECOND	= 1.0;
+	private static final int	RATE_LIMIT_BURST		= 3;
+
+	/**
+	 * Attempts made for a lookup
+	 */
+	private static final int	RETRY_MAX_ATTEMPTS		= 3;
+
+	static {
+		configureHost(url, serviceName, RATE_LIMIT_PER_SECOND, RATE_LIMIT_BURST,
+				new RetryPolicy(RETRY_MAX_ATTEMPTS, false), RESPONSE_CACHE_TTL_MS, ResponseCache.JSON);
+	}
+
+	private static final AsyncRequest ASYNC_REQUEST = new GetRequest() {
+		@Override
+		protected String getUrl(String pnrNumber) {
+			return getServiceUrl(pnrNumber);
+		}
+
+		@Override
+		public PNRStatusVo parse(String response) throws StatusException {
+			return parseResponse(response);
+		}
+	};
 
 	@Override
 	public String getServiceName() {
 		return serviceName;
 	}
 
+	@Override
+	public String getBaseUrl() {
+		return url;
+	}
+
 	public String getStubResponse() {
 		String response = "{\"passengers\": [{\"trainBookingBerth\": \"S5  , 43,GN    \",\"trainPassenger\": \"Passenger 1\",\"trainCurrentStatus\": \"   CNF  \"},{\"trainBookingBerth\": \"S5  , 46,GN    \",\"trainPassenger\": \"Passenger 2\",\"trainCurrentStatus\": \"   CNF  \"},{\"trainBookingBerth\": \"S5  , 42,GN    \",\"trainPassenger\": \"Passenger 3\",\"trainCurrentStatus\": \"   CNF  \"},{\"trainBookingBerth\": \"S5  , 45,GN    \",\"trainPassenger\": \"Passenger 4\",\"trainCurrentStatus\": \"   CNF  \"}],\"trainDest\": \"Chennai Central\",\"trainOrigin\": \"Eranakulam Jn\",\"trainFareClass\": \" SL\",\"chartStat\": \" CHART NOT PREPARED \",\"trainBoard\": \"Eranakulam Jn\",\"trainEmbark\": \"Chennai Central\",\"trainNo\": \"*16042\",\"trainName\": \"CHENNAI EXPRESS\",\"trainJourney\": \"26-12-2010\"}";
 		// String response =
@@ -72,16 +108,23 @@ public class IxigoService implements IStatusService {
 		PNRStatusVo pnrStatusVo = null;
 
 		try {
-			response = PNRUtils.getWebResult(searchUrl);
+			response = NetworkService.getInstance().doGetRequest(searchUrl);
 			pnrStatusVo = parseResponse(response);
-		} catch (IOException e) {
-			throw new StatusException("IO Error occured");
+		} catch (StatusException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new StatusException("IO Error occured", e);
 		}
 
 		Log.d(AppConstants.TAG, "WebResultResponse : " + response);
 		return pnrStatusVo;
 	}
 
+	@Override
+	protected AsyncRequest getAsyncRequest() {
+		return ASYNC_REQUEST;
+	}
+
 	@Override
 	public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
 		if (stubResponse == true) {
@@ -90,7 +133,7 @@ public class IxigoService implements IStatusService {
 		return getResponse(pnrNumber);
 	}
 
-	private String getServiceUrl(String pnrNumber) {
+	private static String getServiceUrl(String pnrNumber) {
 		if (null != pnrNumber && !pnrNumber.equals("")) {
 			String pnr1 = pnrNumber.substring(0, 3);
 			String pnr2 = pnrNumber.substring(3);
@@ -103,7 +146,7 @@ public class IxigoService implements IStatusService {
 	/**
 	 * This function parses the response
 	 */
-	protected PNRStatusVo parseResponse(String responseString) throws StatusException {
+	protected static PNRStatusVo parseResponse(String responseString) throws StatusException {
 		PNRStatusVo statusVo = new PNRStatusVo();
 		try {
 
@@ -26,8 +26,12 @@ package com.ae.apps.pnrstatus.service.status;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
 import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
-import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.AsyncRequest;
 import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.network.RequestTemplate;
+import com.ae.apps.pnrstatus.service.network.ResponseCache;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
 import com.ae.apps.pnrstatus.utils.AppConstants;
 import com.ae.apps.pnrstatus.utils.Logger;
 import com.ae.apps.pnrstatus.utils.PNRUtils;
@@ -40,15 +44,16 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An implementation of StatusService based on the PNRStatusService
  *
  * @author Midhun
  */
-public class PNRStatusService implements IStatusService {
+public class PNRStatusService extends AbstractStatusService {
 
     private static final String SERVICE_NAME = "PNRStatus";
     private static final String PARAM_REFERER = "Referer";
@@ -57,27 +62,56 @@ public class PNRStatusService implements IStatusService {
     private static final String REFERRER_URL = "http://www.pnrstatus.in/";
     private static final String SERVICE_URL = "http://www.pnrstatus.in/pnr/query.php";
 
+    /**
+     * pnrstatus.in is a small site, requests to it are spread out
+     */
+    private static final double RATE_LIMIT_PER_SECOND = 0.5;
+    private static final int RATE_LIMIT_BURST = 2;
+
+    /**
+     * Attempts made for a lookup. The lookup form only reads data, so its POST is safe to repeat
+     */
+    private static final int RETRY_MAX_ATTEMPTS = 2;
+
+    static {
+        configureHost(SERVICE_URL, SERVICE_NAME, RATE_LIMIT_PER_SECOND, RATE_LIMIT_BURST,
+                new RetryPolicy(RETRY_MAX_ATTEMPTS, true), RESPONSE_CACHE_TTL_MS, ResponseCache.HTML);
+    }
+
+    private static final RequestTemplate REQUEST_TEMPLATE = createRequestTemplate();
+
+    private static final AsyncRequest ASYNC_REQUEST = new PostRequest(REQUEST_TEMPLATE) {
+        @Override
+        public PNRStatusVo parse(String response) throws StatusException {
+            return parseResponse(response);
+        }
+    };
+
+    private static RequestTemplate createRequestTemplate() {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put(PARAM_REFERER, REFERRER_URL);
+        headers.put(CONTENT_TYPE, "application/x-www-form-urlencoded");
+        return RequestTemplate.forPost(SERVICE_URL, headers, null, PARAM_PNR);
+    }
+
     @Override
     public String getServiceName() {
         return SERVICE_NAME;
     }
 
+    @Override
+    public String getBaseUrl() {
+        return SERVICE_URL;
+    }
+
     @Override
     public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
         Logger.i(AppConstants.TAG, "Using " + getServiceName());
 
         PNRStatusVo pnrStatusVo = null;
 
-        // Create the headers and params for request
-        HashMap<String, String> params = new HashMap<String, String>();
-        HashMap<String, String> headers = new HashMap<String, String>();
-
-        headers.put(PARAM_REFERER, REFERRER_URL);
-        headers.put(CONTENT_TYPE, "application/x-www-form-urlencoded");
-        params.put(PARAM_PNR, pnrNumber);
-
         try {
-            String response = NetworkService.getInstance().doPostRequest(SERVICE_URL, headers, params);
+            String response = NetworkService.getInstance().doPostRequest(REQUEST_TEMPLATE, pnrNumber);
             if (response == null) {
                 throw new StatusException("responseObject is null", ErrorCodes.EMPTY_RESPONSE);
             }
@@ -88,7 +122,12 @@ public class PNRStatusService implements IStatusService {
         return pnrStatusVo;
     }
 
-    private PNRStatusVo parseResponse(String response) throws StatusException {
+    @Override
+    protected AsyncRequest getAsyncRequest() {
+        return ASYNC_REQUEST;
+    }
+
+    private static PNRStatusVo parseResponse(String response) throws StatusException {
         PNRStatusVo statusVo = new PNRStatusVo();
         try {
             JSONTokener jsonTokener = new JSONTokener(response);
@@ -155,7 +194,7 @@ public class PNRStatusService implements IStatusService {
      * @return
      * @throws JSONException
      */
-    private JSONObject getJsonObject(String source) throws JSONException {
+    private static JSONObject getJsonObject(String source) throws JSONException {
         StringBuilder json = new StringBuilder();
         json.append('{');
         boolean elementStarted = false;
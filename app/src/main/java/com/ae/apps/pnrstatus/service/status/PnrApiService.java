@@ -26,8 +26,11 @@ package com.ae.apps.pnrstatus.service.status;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
 import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
-import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.AsyncRequest;
 import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.network.ResponseCache;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
 import com.ae.apps.pnrstatus.utils.PNRUtils;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 import com.ae.apps.pnrstatus.vo.PassengerDataVo;
@@ -45,17 +48,50 @@ import java.util.List;
  *
  * @author Midhun
  */
-public class PnrApiService implements IStatusService {
+public class PnrApiService extends AbstractStatusService {
 
     private static final String FIELD_NAME = "name";
     private static final String SERVICE_URL = "http://pnrapi.alagu.net/api/v1.0/pnr/";
     private static final String SERVICE_NAME = "PNRAPI";
 
+    /**
+     * Rate at which requests are sent to the pnrapi server
+     */
+    private static final double RATE_LIMIT_PER_SECOND = 1.0;
+    private static final int RATE_LIMIT_BURST = 3;
+
+    /**
+     * Attempts made for a lookup
+     */
+    private static final int RETRY_MAX_ATTEMPTS = 3;
+
+    static {
+        configureHost(SERVICE_URL, SERVICE_NAME, RATE_LIMIT_PER_SECOND, RATE_LIMIT_BURST,
+                new RetryPolicy(RETRY_MAX_ATTEMPTS, false), RESPONSE_CACHE_TTL_MS, ResponseCache.JSON);
+    }
+
+    private static final AsyncRequest ASYNC_REQUEST = new GetRequest() {
+        @Override
+        protected String getUrl(String pnrNumber) {
+            return getServiceUrl(pnrNumber);
+        }
+
+        @Override
+        public PNRStatusVo parse(String response) throws StatusException {
+            return parseResponse(response);
+        }
+    };
+
     @Override
     public String getServiceName() {
         return SERVICE_NAME;
     }
 
+    @Override
+    public String getBaseUrl() {
+        return SERVICE_URL;
+    }
+
     @Override
     public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
         String searchUrl = getServiceUrl(pnrNumber);
@@ -73,6 +109,11 @@ public class PnrApiService implements IStatusService {
         return pnrStatusVo;
     }
 
+    @Override
+    protected AsyncRequest getAsyncRequest() {
+        return ASYNC_REQUEST;
+    }
+
     @Override
     public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
         PNRStatusVo statusVo;
@@ -95,14 +136,14 @@ public class PnrApiService implements IStatusService {
         return response;
     }
 
-    private String getServiceUrl(String pnrNumber) {
+    private static String getServiceUrl(String pnrNumber) {
         if (null != pnrNumber && !pnrNumber.equals("")) {
             return SERVICE_URL + pnrNumber;
         }
         return "";
     }
 
-    private PNRStatusVo parseResponse(String responseString) throws StatusException {
+    private static PNRStatusVo parseResponse(String responseString) throws StatusException {
         PNRStatusVo statusVo = new PNRStatusVo();
         try {
             JSONTokener jsonTokener = new JSONTokener(responseString);
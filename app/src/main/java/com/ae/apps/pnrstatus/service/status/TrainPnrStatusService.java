@@ -25,21 +25,28 @@
 package com.ae.apps.pnrstatus.service.status;
 
 import com.ae.apps.pnrstatus.exceptions.StatusException;
-import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.AsyncRequest;
 import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.network.RequestTemplate;
+import com.ae.apps.pnrstatus.service.network.ResponseCache;
+import com.ae.apps.pnrstatus.service.network.RetryPolicy;
+import com.ae.apps.pnrstatus.service.network.StreamingBody;
 import com.ae.apps.pnrstatus.utils.AppConstants;
 import com.ae.apps.pnrstatus.utils.Logger;
 import com.ae.apps.pnrstatus.utils.PNRUtils;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 import com.ae.apps.pnrstatus.vo.PassengerDataVo;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.ae.apps.pnrstatus.utils.AppConstants.TAG;
 
-public class TrainPnrStatusService implements IStatusService {
+public class TrainPnrStatusService extends AbstractStatusService {
 
     private static final String SERVICE_NAME = "TrainPnrStatusService";
     private static final String PARAM_PNR = "lccp_pnrno1";
@@ -56,46 +63,82 @@ public class TrainPnrStatusService implements IStatusService {
     private static final String VALUE_HTTPS = "https";
     private static final String APPLICATION_X_WWW_FORM_URLENCODED = "application/x-www-form-urlencoded";
 
-    @Override
-    public String getServiceName() {
-        return SERVICE_NAME;
+    /**
+     * trainspnrstatus.com is a small site, requests to it are spread out
+     */
+    private static final double RATE_LIMIT_PER_SECOND = 0.5;
+    private static final int RATE_LIMIT_BURST = 2;
+
+    /**
+     * Attempts made for a lookup. The lookup form only reads data, so its POST is safe to repeat
+     */
+    private static final int RETRY_MAX_ATTEMPTS = 2;
+
+    static {
+        configureHost(SERVICE_URL, SERVICE_NAME, RATE_LIMIT_PER_SECOND, RATE_LIMIT_BURST,
+                new RetryPolicy(RETRY_MAX_ATTEMPTS, true), RESPONSE_CACHE_TTL_MS, ResponseCache.HTML);
     }
 
-    @Override
-    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
-        // Create the headers and params for request
-        HashMap<String, String> params = new HashMap<String, String>();
-        HashMap<String, String> headers = new HashMap<String, String>();
+    private static final RequestTemplate REQUEST_TEMPLATE = createRequestTemplate();
 
-        // Creating the headers
+    private static final AsyncRequest ASYNC_REQUEST = new PostRequest(REQUEST_TEMPLATE) {
+        @Override
+        public PNRStatusVo parse(String response) throws StatusException {
+            return parseResponse(response);
+        }
+    };
+
+    private static RequestTemplate createRequestTemplate() {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
         headers.put(PARAM_REFERER, REFERRER_URL);
         headers.put(PARAM_ORIGIN, ORIGIN_URL);
         headers.put(PARAM_DNT, VALUE_ONE);
         headers.put(PARAM_SCHEME, VALUE_HTTPS);
         headers.put(PARAM_CONTENT_TYPE, APPLICATION_X_WWW_FORM_URLENCODED);
 
-        // Form Data for the request
-        params.put(PARAM_PNR, pnrNumber);
+        // The pnr number is the only form data
+        return RequestTemplate.forPost(SERVICE_URL, headers, null, PARAM_PNR);
+    }
+
+    @Override
+    public String getServiceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return SERVICE_URL;
+    }
 
-        // invoke the post method and get the response
-        String webResponse;
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        // invoke the post method and parse the response while it is downloaded
+        List<String> elements;
+        StreamingBody body = null;
         try {
-            webResponse = NetworkService
+            body = NetworkService
                     .getInstance()
-                    .doPostRequest(SERVICE_URL, headers, params);
-            if (webResponse == null) {
-                throw new StatusException("responseObject is null", StatusException.ErrorCodes.EMPTY_RESPONSE);
-            }
-            Logger.d(TAG, webResponse);
+                    .doPostStream(REQUEST_TEMPLATE, pnrNumber);
+            elements = PNRUtils.parseTrainPnrStatusResponse(body.charStream());
         } catch (StatusException e) {
             throw e;
+        } catch (IOException e) {
+            throw new StatusException(e.getMessage(), e, StatusException.ErrorCodes.URL_ERROR);
         } catch (Exception e) {
-            throw new StatusException(e.getMessage(), e);
+            // If PNR Number is invalid, we might get an exception while parsing
+            throw new StatusException("Unable to Parse the response", StatusException.ErrorCodes.PARSE_ERROR);
+        } finally {
+            if (null != body) {
+                body.close();
+            }
         }
 
-        Logger.d(TAG, "WebResultResponse length : " + webResponse.length());
+        return createStatusVo(elements);
+    }
 
-        return parseResponse(webResponse);
+    @Override
+    protected AsyncRequest getAsyncRequest() {
+        return ASYNC_REQUEST;
     }
 
     @Override
@@ -112,8 +155,7 @@ public class TrainPnrStatusService implements IStatusService {
         return pnrStatusVo;
     }
 
-    private PNRStatusVo parseResponse(String html) throws StatusException {
-        PNRStatusVo pnrStatusVo = new PNRStatusVo();
+    private static PNRStatusVo parseResponse(String html) throws StatusException {
         List<String> elements;
         try {
             elements = PNRUtils.parseTrainPnrStatusResponse(html);
@@ -121,7 +163,11 @@ public class TrainPnrStatusService implements IStatusService {
             // If PNR Number is invalid, we might get an exception while parsing
             throw new StatusException("Unable to Parse the response", StatusException.ErrorCodes.PARSE_ERROR);
         }
+        return createStatusVo(elements);
+    }
 
+    private static PNRStatusVo createStatusVo(List<String> elements) throws StatusException {
+        PNRStatusVo pnrStatusVo = new PNRStatusVo();
         Logger.d(TAG, "elements in parsed response : " + elements.size());
 
         int infoDataCount = 8;
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sends each lookup to the provider with the shortest expected time till a valid result, going by the moving
+ * averages of its latency and success rate in ProviderStats. A small share of the lookups goes to one of the other
+ * providers instead, so that their stats stay fresh and a provider that got faster is noticed.
+ *
+ * @author Midhun
+ */
+public class AdaptiveStatusService extends AbstractStatusService {
+
+    private static final String SERVICE_NAME = "Auto";
+
+    /**
+     * Share of the lookups sent to a provider other than the best one
+     */
+    private static final double EXPLORATION_RATE = 0.05;
+
+    private final List<IStatusService> mProviders;
+    private final double mExplorationRate;
+    private final Random mRandom;
+
+    /**
+     * @param providers the providers to choose from, in the order of preference when their stats are equal
+     */
+    public AdaptiveStatusService(final List<IStatusService> providers) {
+        this(providers, EXPLORATION_RATE, new Random());
+    }
+
+    AdaptiveStatusService(final List<IStatusService> providers, final double explorationRate, final Random random) {
+        mProviders = providers;
+        mExplorationRate = explorationRate;
+        mRandom = random;
+    }
+
+    @Override
+    public String getServiceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return getBestProvider(getAvailableProviders()).getBaseUrl();
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return selectProvider().getResponse(pnrNumber);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        return selectProvider().getResponse(pnrNumber, stubResponse);
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(String pnrNumber, Boolean stubResponse) {
+        return selectProvider().getResponseAsync(pnrNumber, stubResponse);
+    }
+
+    /**
+     * @return the provider for the next lookup
+     */
+    IStatusService selectProvider() {
+        List<IStatusService> available = getAvailableProviders();
+        IStatusService best = getBestProvider(available);
+        if (available.size() > 1 && mRandom.nextDouble() < mExplorationRate) {
+            available.remove(best);
+            return available.get(mRandom.nextInt(available.size()));
+        }
+        return best;
+    }
+
+    /**
+     * @return the providers whose circuit breaker lets calls through, all of them if none does
+     */
+    private List<IStatusService> getAvailableProviders() {
+        List<IStatusService> available = new ArrayList<IStatusService>();
+        for (IStatusService provider : mProviders) {
+            if (CircuitBreaker.forService(provider.getServiceName()).isCallPermitted()) {
+                available.add(provider);
+            }
+        }
+        if (available.isEmpty()) {
+            available.addAll(mProviders);
+        }
+        return available;
+    }
+
+    private static IStatusService getBestProvider(final List<IStatusService> providers) {
+        IStatusService best = null;
+        long bestTime = Long.MAX_VALUE;
+        for (IStatusService provider : providers) {
+            long expectedTime = ProviderStats.forService(provider.getServiceName()).getExpectedTimeMs();
+            if (expectedTime < bestTime) {
+                best = provider;
+                bestTime = expectedTime;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Circuit breaker for a status provider. It opens when too many of the recent lookups failed, and then rejects
+ * lookups right away instead of waiting on a provider that is down. After a while it lets a few probe lookups
+ * through (half open), and closes again if they all succeed.
+ *
+ * @author Midhun
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Number of recent outcomes that the failure rate is computed over
+     */
+    private static final int DEFAULT_WINDOW_SIZE = 10;
+
+    /**
+     * The circuit does not open before this many outcomes are known
+     */
+    private static final int DEFAULT_MIN_CALLS = 5;
+
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final long DEFAULT_OPEN_DURATION_MS = 60 * 1000;
+    private static final int DEFAULT_PROBE_CALLS = 2;
+
+    private static final ConcurrentMap<String, CircuitBreaker> sBreakers =
+            new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private final int mMinCalls;
+    private final double mFailureRateThreshold;
+    private final long mOpenDurationMs;
+    private final int mProbeCalls;
+
+    /**
+     * Outcomes of the recent lookups, true for a failure
+     */
+    private final boolean[] mOutcomes;
+    private int mOutcomeCount;
+    private int mNextOutcome;
+    private int mFailureCount;
+
+    private State mState = State.CLOSED;
+    private long mOpenedAt;
+    private int mProbesStarted;
+    private int mProbesSucceeded;
+
+    /**
+     * @param serviceName name of the status provider
+     * @return the circuit breaker of the provider
+     */
+    public static CircuitBreaker forService(final String serviceName) {
+        CircuitBreaker breaker = sBreakers.get(serviceName);
+        if (null == breaker) {
+            CircuitBreaker newBreaker = new CircuitBreaker();
+            breaker = sBreakers.putIfAbsent(serviceName, newBreaker);
+            if (null == breaker) {
+                breaker = newBreaker;
+            }
+        }
+        return breaker;
+    }
+
+    public CircuitBreaker() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD,
+                DEFAULT_OPEN_DURATION_MS, DEFAULT_PROBE_CALLS);
+    }
+
+    /**
+     * @param windowSize           number of recent outcomes to compute the failure rate over
+     * @param minCalls             minimum number of outcomes before the circuit can open
+     * @param failureRateThreshold failure rate, between 0 and 1, at which the circuit opens
+     * @param openDurationMs       time for which lookups are rejected before probing
+     * @param probeCalls           number of probe lookups let through while half open
+     */
+    public CircuitBreaker(final int windowSize, final int minCalls, final double failureRateThreshold,
+                          final long openDurationMs, final int probeCalls) {
+        mOutcomes = new boolean[windowSize];
+        mMinCalls = minCalls;
+        mFailureRateThreshold = failureRateThreshold;
+        mOpenDurationMs = openDurationMs;
+        mProbeCalls = probeCalls;
+    }
+
+    /**
+     * Asks for permission to make a lookup. Every permitted lookup has to be reported using onSuccess, onFailure
+     * or onIgnored.
+     *
+     * @return true if the lookup may go ahead
+     */
+    public synchronized boolean tryAcquire() {
+        updateState();
+        switch (mState) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (mProbesStarted < mProbeCalls) {
+                    mProbesStarted++;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if a lookup would be permitted now, without asking for the permission
+     */
+    public synchronized boolean isCallPermitted() {
+        updateState();
+        return State.CLOSED == mState || (State.HALF_OPEN == mState && mProbesStarted < mProbeCalls);
+    }
+
+    public synchronized void onSuccess() {
+        if (State.HALF_OPEN == mState) {
+            mProbesSucceeded++;
+            if (mProbesSucceeded >= mProbeCalls) {
+                // The provider is back
+                transitionTo(State.CLOSED);
+            }
+        } else if (State.CLOSED == mState) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (State.HALF_OPEN == mState) {
+            // A failed probe opens the circuit again
+            transitionTo(State.OPEN);
+        } else if (State.CLOSED == mState) {
+            record(true);
+            if (mOutcomeCount >= mMinCalls && mFailureCount >= mFailureRateThreshold * mOutcomeCount) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * Reports a permitted lookup that ended without an outcome, such as a cancelled one
+     */
+    public synchronized void onIgnored() {
+        if (State.HALF_OPEN == mState && mProbesStarted > 0) {
+            mProbesStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        updateState();
+        return mState;
+    }
+
+    /**
+     * @return the current time in milliseconds, overridden in tests
+     */
+    protected long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    private void updateState() {
+        if (State.OPEN == mState && now() - mOpenedAt >= mOpenDurationMs) {
+            transitionTo(State.HALF_OPEN);
+        }
+    }
+
+    private void record(final boolean failure) {
+        if (mOutcomeCount == mOutcomes.length) {
+            // Drop the oldest outcome
+            if (mOutcomes[mNextOutcome]) {
+                mFailureCount--;
+            }
+        } else {
+            mOutcomeCount++;
+        }
+        mOutcomes[mNextOutcome] = failure;
+        mNextOutcome = (mNextOutcome + 1) % mOutcomes.length;
+        if (failure) {
+            mFailureCount++;
+        }
+    }
+
+    private void transitionTo(final State state) {
+        mState = state;
+        mProbesStarted = 0;
+        mProbesSucceeded = 0;
+        if (State.OPEN == state) {
+            mOpenedAt = now();
+        } else if (State.CLOSED == state) {
+            mOutcomeCount = 0;
+            mNextOutcome = 0;
+            mFailureCount = 0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+/**
+ * Guards the lookups made with a provider using its CircuitBreaker. While the circuit is open, lookups fail right
+ * away with SERVICE_UNAVAILABLE.
+ *
+ * @author Midhun
+ */
+public class CircuitBreakerStatusService extends AbstractStatusService {
+
+    private final IStatusService mDelegate;
+    private final CircuitBreaker mBreaker;
+
+    public CircuitBreakerStatusService(final IStatusService delegate) {
+        this(delegate, CircuitBreaker.forService(delegate.getServiceName()));
+    }
+
+    CircuitBreakerStatusService(final IStatusService delegate, final CircuitBreaker breaker) {
+        mDelegate = delegate;
+        mBreaker = breaker;
+    }
+
+    @Override
+    public String getServiceName() {
+        return mDelegate.getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mDelegate.getBaseUrl();
+    }
+
+    /**
+     * @return the service that this one wraps
+     */
+    public IStatusService getDelegate() {
+        return mDelegate;
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mDelegate.getResponse(pnrNumber, true);
+        }
+
+        if (!mBreaker.tryAcquire()) {
+            throw new StatusException(getServiceName() + " is not available",
+                    StatusException.ErrorCodes.SERVICE_UNAVAILABLE);
+        }
+
+        PNRStatusVo statusVo;
+        try {
+            statusVo = mDelegate.getResponse(pnrNumber);
+        } catch (StatusException e) {
+            if (MonitoredStatusService.isCancellation(e)) {
+                // Cancelled by us, the provider is not to blame
+                mBreaker.onIgnored();
+            } else {
+                mBreaker.onFailure();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            mBreaker.onFailure();
+            throw e;
+        }
+        mBreaker.onSuccess();
+        return statusVo;
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mDelegate.getResponseAsync(pnrNumber, true);
+        }
+
+        if (!mBreaker.tryAcquire()) {
+            return StatusFuture.failed(new StatusException(getServiceName() + " is not available",
+                    StatusException.ErrorCodes.SERVICE_UNAVAILABLE));
+        }
+
+        final StatusFuture lookup = mDelegate.getResponseAsync(pnrNumber);
+        lookup.addListener(new StatusFuture.Listener() {
+            @Override
+            public void onSuccess(PNRStatusVo statusVo) {
+                mBreaker.onSuccess();
+            }
+
+            @Override
+            public void onFailure(StatusException e) {
+                if (lookup.isCancelled() || StatusException.ErrorCodes.CANCELLED == e.getErrorCode()) {
+                    mBreaker.onIgnored();
+                } else {
+                    mBreaker.onFailure();
+                }
+            }
+        });
+        return lookup;
+    }
+}
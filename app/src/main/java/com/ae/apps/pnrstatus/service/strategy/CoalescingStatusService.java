@@ -0,0 +1,337 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Makes concurrent lookups of the same pnr number on the same provider share a single request. The first caller
+ * runs the lookup, the others wait for it and receive the same PNRStatusVo or StatusException. When the lookup
+ * is cancelled, the callers that did not cancel it run it again instead. An async lookup is cancelled once all of
+ * its callers have cancelled.
+ *
+ * @author Midhun
+ */
+public class CoalescingStatusService extends AbstractStatusService {
+
+    /**
+     * Lookups in flight, shared by all the instances so that callers holding different wrappers are coalesced too
+     */
+    private static final ConcurrentMap<String, FutureTask<PNRStatusVo>> sInFlight =
+            new ConcurrentHashMap<String, FutureTask<PNRStatusVo>>();
+
+    /**
+     * Async lookups in flight. Each caller gets a future of its own, so that one caller cancelling does not cancel
+     * the lookup for the others. The lookup is cancelled once all of its callers have cancelled.
+     */
+    private static final ConcurrentMap<String, SharedLookup> sInFlightAsync =
+            new ConcurrentHashMap<String, SharedLookup>();
+
+    private final IStatusService mDelegate;
+
+    public CoalescingStatusService(final IStatusService delegate) {
+        mDelegate = delegate;
+    }
+
+    @Override
+    public String getServiceName() {
+        return mDelegate.getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mDelegate.getBaseUrl();
+    }
+
+    /**
+     * @return the service that this one wraps
+     */
+    public IStatusService getDelegate() {
+        return mDelegate;
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(final String pnrNumber, final Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            // Stubbed responses are not costly, no need to share them
+            return mDelegate.getResponse(pnrNumber, true);
+        }
+        return lookUp(pnrNumber, true);
+    }
+
+    /**
+     * @param retry true to run the lookup again when the caller that ran it was cancelled
+     */
+    private PNRStatusVo lookUp(final String pnrNumber, final boolean retry) throws StatusException {
+        String key = getKey(pnrNumber);
+        FutureTask<PNRStatusVo> lookup = new FutureTask<PNRStatusVo>(new Callable<PNRStatusVo>() {
+            @Override
+            public PNRStatusVo call() throws Exception {
+                try {
+                    return mDelegate.getResponse(pnrNumber);
+                } catch (StatusException e) {
+                    if (MonitoredStatusService.isCancellation(e) && ErrorCodes.CANCELLED != e.getErrorCode()) {
+                        // So that the others can tell that it did not fail on its own
+                        throw new StatusException("Lookup was cancelled", e, ErrorCodes.CANCELLED);
+                    }
+                    throw e;
+                }
+            }
+        });
+
+        FutureTask<PNRStatusVo> inFlight = sInFlight.putIfAbsent(key, lookup);
+        if (null == inFlight) {
+            // No one else is looking up this pnr, run it on this thread
+            try {
+                lookup.run();
+            } finally {
+                sInFlight.remove(key, lookup);
+            }
+            return await(lookup);
+        }
+
+        try {
+            return await(inFlight);
+        } catch (StatusException e) {
+            if (retry && ErrorCodes.CANCELLED == e.getErrorCode() && !Thread.currentThread().isInterrupted()) {
+                // The caller that ran the lookup was cancelled, this one was not. It may not have removed it yet.
+                sInFlight.remove(key, inFlight);
+                return lookUp(pnrNumber, false);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mDelegate.getResponseAsync(pnrNumber, true);
+        }
+
+        StatusFuture caller = new StatusFuture();
+        follow(join(pnrNumber), pnrNumber, caller, true);
+        return caller;
+    }
+
+    /**
+     * Completes the future of the caller with the result of the shared lookup, which the caller has joined
+     *
+     * @param retry true to share a new lookup when this one was cancelled
+     */
+    private void follow(final SharedLookup shared, final String pnrNumber, final StatusFuture caller,
+                        final boolean retry) {
+        caller.setCancellable(new Cancellable() {
+            @Override
+            public void cancel() {
+                shared.leave();
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return caller.isCancelled();
+            }
+        });
+        shared.mResult.addListener(new StatusFuture.Listener() {
+            @Override
+            public void onSuccess(PNRStatusVo statusVo) {
+                caller.complete(statusVo);
+            }
+
+            @Override
+            public void onFailure(StatusException e) {
+                if (retry && ErrorCodes.CANCELLED == e.getErrorCode() && !caller.isDone()) {
+                    // The shared lookup was cancelled, not this caller
+                    follow(rejoin(shared, pnrNumber), pnrNumber, caller, false);
+                    return;
+                }
+                caller.fail(e);
+            }
+        });
+    }
+
+    /**
+     * @return the lookup of the pnr in flight with one more caller, started if there is none
+     */
+    private SharedLookup join(final String pnrNumber) {
+        final String key = getKey(pnrNumber);
+        while (true) {
+            SharedLookup inFlight = sInFlightAsync.get(key);
+            if (null == inFlight) {
+                final SharedLookup lookup = new SharedLookup();
+                lookup.join();
+                inFlight = sInFlightAsync.putIfAbsent(key, lookup);
+                if (null == inFlight) {
+                    start(key, pnrNumber, lookup);
+                    return lookup;
+                }
+            }
+            if (inFlight.join()) {
+                return inFlight;
+            }
+            // All its callers have left it and it is being cancelled
+            sInFlightAsync.remove(key, inFlight);
+        }
+    }
+
+    /**
+     * Moves a caller of a cancelled lookup to the lookup that replaces it. All the callers move to the same one,
+     * even when it has completed before the last of them gets to it.
+     *
+     * @return the replacement, which the caller has joined
+     */
+    private SharedLookup rejoin(final SharedLookup cancelled, final String pnrNumber) {
+        synchronized (cancelled) {
+            if (null == cancelled.mReplacement || !cancelled.mReplacement.join()) {
+                sInFlightAsync.remove(getKey(pnrNumber), cancelled);
+                cancelled.mReplacement = join(pnrNumber);
+            }
+            return cancelled.mReplacement;
+        }
+    }
+
+    private void start(final String key, final String pnrNumber, final SharedLookup lookup) {
+        // Registered before it can complete, so that removing it can not remove a later lookup
+        lookup.mResult.addListener(new StatusFuture.Listener() {
+            @Override
+            public void onSuccess(PNRStatusVo statusVo) {
+                sInFlightAsync.remove(key, lookup);
+            }
+
+            @Override
+            public void onFailure(StatusException e) {
+                sInFlightAsync.remove(key, lookup);
+            }
+        });
+        final StatusFuture delegateLookup = mDelegate.getResponseAsync(pnrNumber);
+        lookup.mResult.setCancellable(new Cancellable() {
+            @Override
+            public void cancel() {
+                delegateLookup.cancel(true);
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return delegateLookup.isCancelled();
+            }
+        });
+        delegateLookup.addListener(new Forwarder(lookup.mResult));
+    }
+
+    private String getKey(final String pnrNumber) {
+        return mDelegate.getServiceName() + ":" + pnrNumber;
+    }
+
+    private static PNRStatusVo await(final FutureTask<PNRStatusVo> lookup) throws StatusException {
+        try {
+            return lookup.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StatusException) {
+                throw (StatusException) cause;
+            }
+            throw new StatusException(String.valueOf(cause), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatusException("Interrupted while waiting for the status", e,
+                    ErrorCodes.CANCELLED);
+        }
+    }
+
+    /**
+     * An async lookup along with the number of callers still waiting for it
+     */
+    private static class SharedLookup {
+        final StatusFuture mResult = new StatusFuture();
+        private int mCallers;
+        private boolean mAbandoned;
+
+        /**
+         * The lookup that the callers moved to after this one was cancelled, guarded by this
+         */
+        SharedLookup mReplacement;
+
+        /**
+         * @return false if all the callers have left the lookup already, so it can not be joined
+         */
+        synchronized boolean join() {
+            if (mAbandoned) {
+                return false;
+            }
+            mCallers++;
+            return true;
+        }
+
+        /**
+         * Cancels the lookup when the last caller leaves it
+         */
+        void leave() {
+            synchronized (this) {
+                if (--mCallers > 0 || mResult.isDone()) {
+                    return;
+                }
+                mAbandoned = true;
+            }
+            mResult.cancel(true);
+        }
+    }
+
+    /**
+     * Completes another future with the result
+     */
+    private static class Forwarder implements StatusFuture.Listener {
+        private final StatusFuture mTarget;
+
+        Forwarder(final StatusFuture target) {
+            mTarget = target;
+        }
+
+        @Override
+        public void onSuccess(PNRStatusVo statusVo) {
+            mTarget.complete(statusVo);
+        }
+
+        @Override
+        public void onFailure(StatusException e) {
+            mTarget.fail(e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tries the providers one after the other. When a provider fails with an error that another provider might not
+ * run into, the lookup moves on to the next one. All the attempts share one deadline, after which the lookup fails
+ * with TIMEOUT and the running attempt is cancelled. No thread waits for the attempts, the deadline is kept by a
+ * timer.
+ *
+ * @author Midhun
+ */
+public class FallbackStatusService extends AbstractStatusService {
+
+    private final List<IStatusService> mProviders;
+    private final long mDeadlineMs;
+    private final ScheduledExecutorService mScheduler;
+
+    /**
+     * @param providers  the providers to try, in order
+     * @param deadlineMs time in milliseconds that the whole lookup may take
+     */
+    public FallbackStatusService(final List<IStatusService> providers, final long deadlineMs) {
+        this(providers, deadlineMs, LookupExecutor.getScheduler());
+    }
+
+    FallbackStatusService(final List<IStatusService> providers, final long deadlineMs,
+                          final ScheduledExecutorService scheduler) {
+        mProviders = providers;
+        mDeadlineMs = deadlineMs;
+        mScheduler = scheduler;
+    }
+
+    @Override
+    public String getServiceName() {
+        return mProviders.get(0).getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mProviders.get(0).getBaseUrl();
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(final String pnrNumber, final Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mProviders.get(0).getResponse(pnrNumber, true);
+        }
+
+        StatusFuture fallback = getResponseAsync(pnrNumber, false);
+        try {
+            return fallback.getStatus();
+        } finally {
+            // Only has an effect when the wait was interrupted
+            fallback.cancel(true);
+        }
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mProviders.get(0).getResponseAsync(pnrNumber, true);
+        }
+
+        final FallbackLookup lookup = new FallbackLookup(pnrNumber);
+        lookup.setTimer(mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                lookup.timeOut();
+            }
+        }, mDeadlineMs, TimeUnit.MILLISECONDS));
+        lookup.tryNext();
+        return lookup.mResult;
+    }
+
+    /**
+     * @return true if the next provider might succeed where this one failed
+     */
+    static boolean isWorthFallingBack(final StatusException e) {
+        ErrorCodes errorCode = e.getErrorCode();
+        // A parse error usually means that the pnr is not valid, the other providers would not find it either
+        return ErrorCodes.PARSE_ERROR != errorCode && ErrorCodes.CANCELLED != errorCode
+                && !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * The attempts of one lookup. Only one attempt runs at a time.
+     */
+    private class FallbackLookup {
+        private final String mPnrNumber;
+        private final StatusFuture mResult = new StatusFuture();
+
+        private int mNext;
+        private StatusFuture mAttempt;
+        private StatusException mFailure;
+        private ScheduledFuture<?> mTimer;
+
+        FallbackLookup(final String pnrNumber) {
+            mPnrNumber = pnrNumber;
+            mResult.addListener(new StatusFuture.Listener() {
+                @Override
+                public void onSuccess(PNRStatusVo statusVo) {
+                    stop();
+                }
+
+                @Override
+                public void onFailure(StatusException e) {
+                    // Also called on the deadline and when the caller cancels
+                    stop();
+                }
+            });
+        }
+
+        void tryNext() {
+            IStatusService provider;
+            StatusException failure;
+            synchronized (this) {
+                if (mResult.isDone()) {
+                    return;
+                }
+                provider = mNext < mProviders.size() ? mProviders.get(mNext++) : null;
+                failure = mFailure;
+            }
+            if (null == provider) {
+                // Every provider has failed
+                mResult.fail(failure);
+                return;
+            }
+
+            StatusFuture attempt = provider.getResponseAsync(mPnrNumber);
+            synchronized (this) {
+                mAttempt = attempt;
+            }
+            if (mResult.isDone()) {
+                // Missed by stop()
+                attempt.cancel(true);
+                return;
+            }
+            attempt.addListener(new StatusFuture.Listener() {
+                @Override
+                public void onSuccess(PNRStatusVo statusVo) {
+                    mResult.complete(statusVo);
+                }
+
+                @Override
+                public void onFailure(StatusException e) {
+                    if (!isWorthFallingBack(e)) {
+                        mResult.fail(e);
+                        return;
+                    }
+                    synchronized (FallbackLookup.this) {
+                        mFailure = e;
+                    }
+                    tryNext();
+                }
+            });
+        }
+
+        void timeOut() {
+            StatusException failure;
+            synchronized (this) {
+                failure = mFailure;
+            }
+            mResult.fail(new StatusException("No status within " + mDeadlineMs + " ms", failure, ErrorCodes.TIMEOUT));
+        }
+
+        synchronized void setTimer(final ScheduledFuture<?> timer) {
+            mTimer = timer;
+            if (mResult.isDone()) {
+                timer.cancel(false);
+            }
+        }
+
+        /**
+         * Stops the timer and the running attempt. A cancelled attempt fails with CANCELLED, so that the provider
+         * is not blamed for the deadline.
+         */
+        private void stop() {
+            StatusFuture attempt;
+            synchronized (this) {
+                if (null != mTimer) {
+                    mTimer.cancel(false);
+                }
+                attempt = mAttempt;
+            }
+            if (null != attempt) {
+                attempt.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the lookup to the primary provider first. When it has not answered within its usual (p95) latency, or it
+ * fails, the lookup is sent to the next healthy alternate provider as well. The first response that parses is
+ * returned and the other lookup is cancelled. No thread waits for the lookups, the hedge is started by a timer.
+ *
+ * @author Midhun
+ */
+public class HedgedStatusService extends AbstractStatusService {
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final IStatusService mPrimary;
+    private final List<IStatusService> mAlternates;
+    private final ScheduledExecutorService mScheduler;
+
+    /**
+     * @param primary    the provider selected by the user
+     * @param alternates the providers to hedge with, in the order of preference
+     */
+    public HedgedStatusService(final IStatusService primary, final List<IStatusService> alternates) {
+        this(primary, alternates, LookupExecutor.getScheduler());
+    }
+
+    HedgedStatusService(final IStatusService primary, final List<IStatusService> alternates,
+                        final ScheduledExecutorService scheduler) {
+        mPrimary = primary;
+        mAlternates = alternates;
+        mScheduler = scheduler;
+    }
+
+    @Override
+    public String getServiceName() {
+        return mPrimary.getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mPrimary.getBaseUrl();
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(final String pnrNumber, final Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mPrimary.getResponse(pnrNumber, true);
+        }
+
+        StatusFuture hedged = getResponseAsync(pnrNumber, false);
+        try {
+            return hedged.getStatus();
+        } finally {
+            // Only has an effect when the wait was interrupted
+            hedged.cancel(true);
+        }
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mPrimary.getResponseAsync(pnrNumber, true);
+        }
+
+        final HedgedLookup lookup = new HedgedLookup(pnrNumber);
+        lookup.start(mPrimary);
+
+        long hedgeDelay = ProviderStats.forService(mPrimary.getServiceName()).getLatencyPercentile(HEDGE_PERCENTILE);
+        lookup.setTimer(mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // The primary is slower than usual, ask another provider too
+                lookup.hedge();
+            }
+        }, hedgeDelay, TimeUnit.MILLISECONDS));
+        return lookup.mResult;
+    }
+
+    /**
+     * @return the next healthy alternate provider whose circuit is not open, null if there is none
+     */
+    private IStatusService nextAlternate() {
+        for (IStatusService alternate : mAlternates) {
+            String serviceName = alternate.getServiceName();
+            if (ProviderStats.forService(serviceName).isHealthy()
+                    && CircuitBreaker.forService(serviceName).isCallPermitted()) {
+                return alternate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The primary lookup and the hedge. Completes with the first status, or with the first error once every
+     * lookup has failed.
+     */
+    private class HedgedLookup {
+        private final String mPnrNumber;
+        private final StatusFuture mResult = new StatusFuture();
+        private final List<StatusFuture> mLookups = new ArrayList<StatusFuture>(2);
+
+        private boolean mHedged;
+        private int mPending = 1;
+        private StatusException mFailure;
+        private ScheduledFuture<?> mTimer;
+
+        HedgedLookup(final String pnrNumber) {
+            mPnrNumber = pnrNumber;
+            mResult.addListener(new StatusFuture.Listener() {
+                @Override
+                public void onSuccess(PNRStatusVo statusVo) {
+                    stop();
+                }
+
+                @Override
+                public void onFailure(StatusException e) {
+                    // Also called when the caller cancels
+                    stop();
+                }
+            });
+        }
+
+        void start(final IStatusService service) {
+            StatusFuture lookup = service.getResponseAsync(mPnrNumber);
+            synchronized (this) {
+                mLookups.add(lookup);
+            }
+            if (mResult.isDone()) {
+                // Missed by stop()
+                lookup.cancel(true);
+                return;
+            }
+            lookup.addListener(new StatusFuture.Listener() {
+                @Override
+                public void onSuccess(PNRStatusVo statusVo) {
+                    mResult.complete(statusVo);
+                }
+
+                @Override
+                public void onFailure(StatusException e) {
+                    synchronized (HedgedLookup.this) {
+                        if (null == mFailure) {
+                            mFailure = e;
+                        }
+                        mPending--;
+                    }
+                    hedge();
+                    failIfAllFailed();
+                }
+            });
+        }
+
+        void hedge() {
+            IStatusService alternate;
+            synchronized (this) {
+                if (mHedged || mResult.isDone()) {
+                    return;
+                }
+                mHedged = true;
+                alternate = nextAlternate();
+                if (null != alternate) {
+                    // Counted before it starts, so that a failing primary does not fail the lookup meanwhile
+                    mPending++;
+                }
+            }
+            if (null != alternate) {
+                start(alternate);
+            }
+        }
+
+        synchronized void setTimer(final ScheduledFuture<?> timer) {
+            mTimer = timer;
+            if (mResult.isDone()) {
+                timer.cancel(false);
+            }
+        }
+
+        private void failIfAllFailed() {
+            StatusException failure;
+            synchronized (this) {
+                if (!mHedged || mPending > 0) {
+                    return;
+                }
+                failure = mFailure;
+            }
+            mResult.fail(failure);
+        }
+
+        /**
+         * Stops the timer and the lookups that lost
+         */
+        private void stop() {
+            List<StatusFuture> lookups;
+            synchronized (this) {
+                if (null != mTimer) {
+                    mTimer.cancel(false);
+                }
+                lookups = new ArrayList<StatusFuture>(mLookups);
+            }
+            for (StatusFuture lookup : lookups) {
+                lookup.cancel(true);
+            }
+        }
+    }
+}
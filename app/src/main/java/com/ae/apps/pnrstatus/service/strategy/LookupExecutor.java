@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the pool of threads on which the lookup strategies run the blocking status providers, the pool on which
+ * the responses of the async lookups are parsed, and the timer thread of the strategies
+ *
+ * @author Midhun
+ */
+public class LookupExecutor {
+
+    private static final int MAX_THREADS = 8;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Parsing only needs the cpu, one thread per core is enough
+     */
+    private static final int COMPUTE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private static ExecutorService sExecutor;
+    private static ExecutorService sComputeExecutor;
+    private static ScheduledExecutorService sScheduler;
+
+    private LookupExecutor() {
+    }
+
+    public static synchronized ExecutorService getExecutor() {
+        if (null == sExecutor) {
+            sExecutor = newPool(MAX_THREADS, "StatusLookup-");
+        }
+        return sExecutor;
+    }
+
+    public static synchronized ExecutorService getComputeExecutor() {
+        if (null == sComputeExecutor) {
+            sComputeExecutor = newPool(COMPUTE_THREADS, "StatusParse-");
+        }
+        return sComputeExecutor;
+    }
+
+    /**
+     * The tasks scheduled here must only start async lookups, never wait for one
+     */
+    public static synchronized ScheduledExecutorService getScheduler() {
+        if (null == sScheduler) {
+            sScheduler = new ScheduledThreadPoolExecutor(1, newThreadFactory("StatusTimer-"));
+        }
+        return sScheduler;
+    }
+
+    private static ExecutorService newPool(final int threads, final String namePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                newThreadFactory(namePrefix));
+        // Let the pool shrink to nothing while the app is idle
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory newThreadFactory(final String namePrefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+/**
+ * Records the latency and outcome of every lookup made with the provider in its ProviderStats
+ *
+ * @author Midhun
+ */
+public class MonitoredStatusService extends AbstractStatusService {
+
+    private final IStatusService mDelegate;
+    private final ProviderStats mStats;
+
+    public MonitoredStatusService(final IStatusService delegate) {
+        mDelegate = delegate;
+        mStats = ProviderStats.forService(delegate.getServiceName());
+    }
+
+    @Override
+    public String getServiceName() {
+        return mDelegate.getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mDelegate.getBaseUrl();
+    }
+
+    /**
+     * @return the service that this one wraps
+     */
+    public IStatusService getDelegate() {
+        return mDelegate;
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mDelegate.getResponse(pnrNumber, true);
+        }
+
+        long start = System.nanoTime();
+        PNRStatusVo statusVo;
+        try {
+            statusVo = mDelegate.getResponse(pnrNumber);
+        } catch (StatusException e) {
+            // A lookup that was cancelled by us says nothing about the provider
+            if (!isCancellation(e)) {
+                mStats.recordFailure();
+            }
+            throw e;
+        }
+        mStats.recordSuccess((System.nanoTime() - start) / 1000000);
+        return statusVo;
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mDelegate.getResponseAsync(pnrNumber, true);
+        }
+
+        final long start = System.nanoTime();
+        final StatusFuture lookup = mDelegate.getResponseAsync(pnrNumber);
+        lookup.addListener(new StatusFuture.Listener() {
+            @Override
+            public void onSuccess(PNRStatusVo statusVo) {
+                mStats.recordSuccess((System.nanoTime() - start) / 1000000);
+            }
+
+            @Override
+            public void onFailure(StatusException e) {
+                if (!lookup.isCancelled() && StatusException.ErrorCodes.CANCELLED != e.getErrorCode()) {
+                    mStats.recordFailure();
+                }
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * @return true if the lookup failed because it was stopped by the app, rather than by the provider
+     */
+    static boolean isCancellation(final StatusException e) {
+        return StatusException.ErrorCodes.CANCELLED == e.getErrorCode() || Thread.currentThread().isInterrupted();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.utils.AppConstants;
+import com.ae.apps.pnrstatus.utils.Logger;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers for a short while the pnr numbers that the provider could not find. A pnr that is invalid or not yet
+ * known fails with a parse error or an empty response, and checking it again right away would repeat the whole
+ * lookup for the same result. The time is kept short so that a newly issued pnr resolves soon after.
+ *
+ * @author Midhun
+ */
+public class NegativeCacheStatusService extends AbstractStatusService {
+
+    static final long PARSE_ERROR_TTL_MS = TimeUnit.MINUTES.toMillis(2);
+    static final long EMPTY_RESPONSE_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int MAX_ENTRIES = 64;
+
+    /**
+     * A failure along with the time till which it is repeated
+     */
+    private static class Entry {
+        final ErrorCodes mErrorCode;
+        final String mMessage;
+        final long mExpiresAt;
+
+        Entry(final ErrorCodes errorCode, final String message, final long expiresAt) {
+            mErrorCode = errorCode;
+            mMessage = message;
+            mExpiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry> mEntries = Collections.synchronizedMap(
+            new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, NegativeCacheStatusService.Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    private final IStatusService mDelegate;
+    private final Map<ErrorCodes, Long> mTtls;
+
+    public NegativeCacheStatusService(final IStatusService delegate) {
+        mDelegate = delegate;
+        mTtls = new EnumMap<ErrorCodes, Long>(ErrorCodes.class);
+        mTtls.put(ErrorCodes.PARSE_ERROR, PARSE_ERROR_TTL_MS);
+        mTtls.put(ErrorCodes.EMPTY_RESPONSE, EMPTY_RESPONSE_TTL_MS);
+    }
+
+    @Override
+    public String getServiceName() {
+        return mDelegate.getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mDelegate.getBaseUrl();
+    }
+
+    /**
+     * @return the service that this one wraps
+     */
+    public IStatusService getDelegate() {
+        return mDelegate;
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mDelegate.getResponse(pnrNumber, true);
+        }
+
+        StatusException knownFailure = getKnownFailure(pnrNumber);
+        if (null != knownFailure) {
+            throw knownFailure;
+        }
+        try {
+            return mDelegate.getResponse(pnrNumber, false);
+        } catch (StatusException e) {
+            remember(pnrNumber, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mDelegate.getResponseAsync(pnrNumber, true);
+        }
+
+        StatusException knownFailure = getKnownFailure(pnrNumber);
+        if (null != knownFailure) {
+            return StatusFuture.failed(knownFailure);
+        }
+        StatusFuture lookup = mDelegate.getResponseAsync(pnrNumber);
+        lookup.addListener(new StatusFuture.Listener() {
+            @Override
+            public void onSuccess(PNRStatusVo statusVo) {
+                // Nothing to remember
+            }
+
+            @Override
+            public void onFailure(StatusException e) {
+                remember(pnrNumber, e);
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * @return the current time in milliseconds
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @return a new exception for the failure remembered for the pnr, null if there is none
+     */
+    private StatusException getKnownFailure(final String pnrNumber) {
+        Entry entry = mEntries.get(pnrNumber);
+        if (null == entry) {
+            return null;
+        }
+        if (now() >= entry.mExpiresAt) {
+            mEntries.remove(pnrNumber);
+            return null;
+        }
+        Logger.d(AppConstants.TAG, "Lookup of " + pnrNumber + " failed recently, not trying again yet");
+        return new StatusException(entry.mMessage, entry.mErrorCode);
+    }
+
+    private void remember(final String pnrNumber, final StatusException e) {
+        Long ttl = mTtls.get(e.getErrorCode());
+        if (null != ttl) {
+            mEntries.put(pnrNumber, new Entry(e.getErrorCode(), e.getMessage(), now() + ttl));
+        }
+    }
+}
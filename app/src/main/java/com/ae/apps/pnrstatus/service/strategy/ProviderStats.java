@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latencies and outcomes of the recent lookups made with a status provider. There is one instance per provider,
+ * shared across the app.
+ *
+ * @author Midhun
+ */
+public class ProviderStats {
+
+    /**
+     * Number of recent latencies used for the percentiles
+     */
+    private static final int SAMPLE_SIZE = 64;
+
+    /**
+     * Till this many lookups have succeeded, the percentiles return the default latency
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    static final long DEFAULT_LATENCY_MS = 4000;
+
+    /**
+     * A provider that failed this many times in a row is not considered healthy
+     */
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    /**
+     * Weight of the latest lookup in the moving averages
+     */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    /**
+     * Floor for the success rate in the expected time, so that a failing provider gets a large but finite cost
+     */
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    private static final ConcurrentMap<String, ProviderStats> sStats = new ConcurrentHashMap<String, ProviderStats>();
+
+    private final long[] mLatencies = new long[SAMPLE_SIZE];
+    private int mSampleCount;
+    private int mNextSample;
+
+    private int mSuccessCount;
+    private int mFailureCount;
+    private int mConsecutiveFailures;
+
+    private double mEwmaLatencyMs = DEFAULT_LATENCY_MS;
+    private double mEwmaSuccessRate = 1.0;
+
+    /**
+     * @param serviceName name of the status provider
+     * @return the stats of the provider
+     */
+    public static ProviderStats forService(final String serviceName) {
+        ProviderStats stats = sStats.get(serviceName);
+        if (null == stats) {
+            ProviderStats newStats = new ProviderStats();
+            stats = sStats.putIfAbsent(serviceName, newStats);
+            if (null == stats) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    public synchronized void recordSuccess(final long latencyMs) {
+        mLatencies[mNextSample] = latencyMs;
+        mNextSample = (mNextSample + 1) % SAMPLE_SIZE;
+        if (mSampleCount < SAMPLE_SIZE) {
+            mSampleCount++;
+        }
+        // The first latency replaces the default instead of being averaged with it
+        mEwmaLatencyMs = 0 == mSuccessCount ? latencyMs : ewma(mEwmaLatencyMs, latencyMs);
+        mEwmaSuccessRate = ewma(mEwmaSuccessRate, 1.0);
+        mSuccessCount++;
+        mConsecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        mEwmaSuccessRate = ewma(mEwmaSuccessRate, 0.0);
+        mFailureCount++;
+        mConsecutiveFailures++;
+    }
+
+    /**
+     * @return the moving average of the latency of the successful lookups, in milliseconds
+     */
+    public synchronized long getAverageLatencyMs() {
+        return Math.round(mEwmaLatencyMs);
+    }
+
+    /**
+     * @return the moving average of the share of lookups that succeeded, between 0 and 1
+     */
+    public synchronized double getSuccessRate() {
+        return mEwmaSuccessRate;
+    }
+
+    /**
+     * Returns the expected time till a valid result, if failed lookups are repeated till one succeeds. That is
+     * the average latency divided by the success rate.
+     *
+     * @return the expected time in milliseconds
+     */
+    public synchronized long getExpectedTimeMs() {
+        return Math.round(mEwmaLatencyMs / Math.max(mEwmaSuccessRate, MIN_SUCCESS_RATE));
+    }
+
+    private static double ewma(final double average, final double sample) {
+        return average + EWMA_WEIGHT * (sample - average);
+    }
+
+    /**
+     * Returns the latency within which the given fraction of the recent successful lookups completed
+     *
+     * @param percentile fraction between 0 and 1, 0.95 for the p95
+     * @return the latency in milliseconds
+     */
+    public synchronized long getLatencyPercentile(final double percentile) {
+        if (mSampleCount < MIN_SAMPLES) {
+            return DEFAULT_LATENCY_MS;
+        }
+        long[] sorted = Arrays.copyOf(mLatencies, mSampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * mSampleCount) - 1;
+        return sorted[Math.max(0, Math.min(index, mSampleCount - 1))];
+    }
+
+    /**
+     * @return false if the recent lookups with this provider have been failing
+     */
+    public synchronized boolean isHealthy() {
+        return mConsecutiveFailures < MAX_CONSECUTIVE_FAILURES;
+    }
+
+    public synchronized int getSuccessCount() {
+        return mSuccessCount;
+    }
+
+    public synchronized int getFailureCount() {
+        return mFailureCount;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the lookup to every healthy provider at once and returns the first status that parses. The lookups still
+ * running at that point are cancelled, so that they stop using bandwidth. The lookup fails only when all the
+ * providers have failed.
+ *
+ * @author Midhun
+ */
+public class RaceStatusService extends AbstractStatusService {
+
+    private final List<IStatusService> mProviders;
+
+    /**
+     * @param providers the providers to race, the first one is used for stubbed lookups
+     */
+    public RaceStatusService(final List<IStatusService> providers) {
+        mProviders = providers;
+    }
+
+    @Override
+    public String getServiceName() {
+        return mProviders.get(0).getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mProviders.get(0).getBaseUrl();
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mProviders.get(0).getResponse(pnrNumber, true);
+        }
+
+        StatusFuture race = getResponseAsync(pnrNumber, false);
+        try {
+            return race.getStatus();
+        } finally {
+            // Only has an effect when the wait was interrupted
+            race.cancel(true);
+        }
+    }
+
+    @Override
+    public StatusFuture getResponseAsync(String pnrNumber, Boolean stubResponse) {
+        if (stubResponse) {
+            return mProviders.get(0).getResponseAsync(pnrNumber, true);
+        }
+
+        final List<StatusFuture> lookups = new ArrayList<StatusFuture>();
+        for (IStatusService provider : getRacers()) {
+            lookups.add(provider.getResponseAsync(pnrNumber));
+        }
+
+        final StatusFuture race = new StatusFuture();
+        race.setCancellable(new Cancellable() {
+            @Override
+            public void cancel() {
+                cancelAll(lookups);
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return race.isCancelled();
+            }
+        });
+
+        final AtomicInteger pending = new AtomicInteger(lookups.size());
+        for (StatusFuture lookup : lookups) {
+            lookup.addListener(new StatusFuture.Listener() {
+                @Override
+                public void onSuccess(PNRStatusVo statusVo) {
+                    if (race.complete(statusVo)) {
+                        // The race is won, stop the others
+                        cancelAll(lookups);
+                    }
+                }
+
+                @Override
+                public void onFailure(StatusException e) {
+                    if (0 == pending.decrementAndGet()) {
+                        race.fail(e);
+                    }
+                }
+            });
+        }
+        return race;
+    }
+
+    /**
+     * @return the providers that are healthy and whose circuit is not open, the first provider if there is none
+     */
+    private List<IStatusService> getRacers() {
+        List<IStatusService> racers = new ArrayList<IStatusService>();
+        for (IStatusService provider : mProviders) {
+            String serviceName = provider.getServiceName();
+            if (ProviderStats.forService(serviceName).isHealthy()
+                    && CircuitBreaker.forService(serviceName).isCallPermitted()) {
+                racers.add(provider);
+            }
+        }
+        if (racers.isEmpty()) {
+            racers.add(mProviders.get(0));
+        }
+        return racers;
+    }
+
+    private static void cancelAll(final List<StatusFuture> lookups) {
+        for (StatusFuture lookup : lookups) {
+            lookup.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.AbstractStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.utils.AppConstants;
+import com.ae.apps.pnrstatus.utils.Logger;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Answers the lookup of a pnr from the last status found for it, for as long as the StatusTtlPolicy says that
+ * status is fresh. The statuses are kept in memory, and in the Store once one is set, so that they survive a
+ * restart of the app. They are shared by all the instances, as the status of a pnr does not depend on the provider
+ * it came from.
+ *
+ * @author Midhun
+ */
+public class StatusCache extends AbstractStatusService {
+
+    /**
+     * Keeps the statuses across restarts of the app
+     */
+    public interface Store {
+
+        /**
+         * @return the entry for the pnr, null if there is none
+         */
+        Entry load(String pnrNumber);
+
+        void save(String pnrNumber, Entry entry);
+
+        void remove(String pnrNumber);
+    }
+
+    /**
+     * A status along with the time it was found and the time till which it is fresh
+     */
+    public static class Entry {
+        private final PNRStatusVo mStatusVo;
+        private final long mCachedAt;
+        private final long mExpiresAt;
+
+        public Entry(final PNRStatusVo statusVo, final long cachedAt, final long expiresAt) {
+            mStatusVo = statusVo;
+            mCachedAt = cachedAt;
+            mExpiresAt = expiresAt;
+        }
+
+        public PNRStatusVo getStatusVo() {
+            return mStatusVo;
+        }
+
+        public long getCachedAt() {
+            return mCachedAt;
+        }
+
+        public long getExpiresAt() {
+            return mExpiresAt;
+        }
+
+        public boolean isFresh(final long now) {
+            return now < mExpiresAt;
+        }
+    }
+
+    private static final int MAX_MEMORY_ENTRIES = 64;
+
+    private static final Map<String, Entry> sEntries = Collections.synchronizedMap(
+            new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StatusCache.Entry> eldest) {
+                    return size() > MAX_MEMORY_ENTRIES;
+                }
+            });
+
+    private static volatile Store sStore;
+
+    private final IStatusService mDelegate;
+    private final StatusTtlPolicy mPolicy;
+
+    public StatusCache(final IStatusService delegate) {
+        this(delegate, new StatusTtlPolicy());
+    }
+
+    StatusCache(final IStatusService delegate, final StatusTtlPolicy policy) {
+        mDelegate = delegate;
+        mPolicy = policy;
+    }
+
+    /**
+     * Starts keeping the statuses in the store as well
+     *
+     * @param store the store
+     */
+    public static void setStore(final Store store) {
+        sStore = store;
+    }
+
+    /**
+     * Returns the last status found for the pnr, fresh or not. Reads the store on a miss in memory, so it should
+     * not be called on the main thread.
+     *
+     * @param pnrNumber the pnr number
+     * @return the entry, null if the pnr has not been looked up
+     */
+    public static Entry getEntry(final String pnrNumber) {
+        Entry entry = sEntries.get(pnrNumber);
+        Store store = sStore;
+        if (null == entry && null != store) {
+            entry = store.load(pnrNumber);
+            if (null != entry) {
+                sEntries.put(pnrNumber, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Forgets the status of the pnr. The store is updated on the lookup pool, so this may be called on the main
+     * thread.
+     *
+     * @param pnrNumber the pnr number
+     */
+    public static void invalidate(final String pnrNumber) {
+        sEntries.remove(pnrNumber);
+        final Store store = sStore;
+        if (null != store) {
+            LookupExecutor.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    store.remove(pnrNumber);
+                }
+            });
+        }
+    }
+
+    @Override
+    public String getServiceName() {
+        return mDelegate.getServiceName();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return mDelegate.getBaseUrl();
+    }
+
+    /**
+     * @return the service that this one wraps
+     */
+    public IStatusService getDelegate() {
+        return mDelegate;
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        return getResponse(pnrNumber, false);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        if (stubResponse) {
+            return mDelegate.getResponse(pnrNumber, true);
+        }
+
+        PNRStatusVo statusVo = getFreshStatus(pnrNumber);
+        if (null == statusVo) {
+            statusVo = mDelegate.getResponse(pnrNumber, false);
+            put(pnrNumber, statusVo);
+        }
+        return statusVo;
+    }
+
+    /**
+     * A status in memory is returned right away. Otherwise the store is read on the lookup pool, so that the
+     * caller is not blocked by it.
+     */
+    @Override
+    public StatusFuture getResponseAsync(final String pnrNumber, final Boolean stubResponse) {
+        if (stubResponse) {
+            return mDelegate.getResponseAsync(pnrNumber, true);
+        }
+
+        Entry entry = sEntries.get(pnrNumber);
+        if (null != entry && entry.isFresh(now())) {
+            StatusFuture cached = new StatusFuture();
+            cached.complete(entry.getStatusVo());
+            return cached;
+        }
+        if (null == sStore) {
+            return lookUpAsync(pnrNumber);
+        }
+
+        final StatusFuture lookup = new StatusFuture();
+        LookupExecutor.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                PNRStatusVo statusVo = getFreshStatus(pnrNumber);
+                if (null != statusVo) {
+                    lookup.complete(statusVo);
+                    return;
+                }
+                final StatusFuture networkLookup = lookUpAsync(pnrNumber);
+                lookup.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() {
+                        networkLookup.cancel(true);
+                    }
+
+                    @Override
+                    public boolean isCanceled() {
+                        return networkLookup.isCancelled();
+                    }
+                });
+                networkLookup.addListener(new StatusFuture.Listener() {
+                    @Override
+                    public void onSuccess(PNRStatusVo statusVo) {
+                        lookup.complete(statusVo);
+                    }
+
+                    @Override
+                    public void onFailure(StatusException e) {
+                        lookup.fail(e);
+                    }
+                });
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * @return the current time in milliseconds
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private StatusFuture lookUpAsync(final String pnrNumber) {
+        StatusFuture lookup = mDelegate.getResponseAsync(pnrNumber);
+        lookup.addListener(new StatusFuture.Listener() {
+            @Override
+            public void onSuccess(PNRStatusVo statusVo) {
+                put(pnrNumber, statusVo);
+            }
+
+            @Override
+            public void onFailure(StatusException e) {
+                // Nothing to keep
+            }
+        });
+        return lookup;
+    }
+
+    private PNRStatusVo getFreshStatus(final String pnrNumber) {
+        Entry entry = getEntry(pnrNumber);
+        if (null != entry && entry.isFresh(now())) {
+            Logger.d(AppConstants.TAG, "Status of " + pnrNumber + " answered from the cache");
+            return entry.getStatusVo();
+        }
+        return null;
+    }
+
+    private void put(final String pnrNumber, final PNRStatusVo statusVo) {
+        if (null == statusVo) {
+            return;
+        }
+        long now = now();
+        statusVo.setLastUpdated(now);
+        long ttl = mPolicy.getTtlMs(statusVo, now);
+        long expiresAt = StatusTtlPolicy.NEVER_EXPIRES == ttl ? Long.MAX_VALUE : now + ttl;
+        Entry entry = new Entry(statusVo, now, expiresAt);
+        sEntries.put(pnrNumber, entry);
+        Store store = sStore;
+        if (null != store) {
+            store.save(pnrNumber, entry);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.utils.AppConstants;
+import com.ae.apps.pnrstatus.utils.PNRUtils;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how long a status may be answered from the StatusCache. A status that can not change anymore is kept for
+ * long, one that may change soon is looked up again after a few minutes.
+ *
+ * @author Midhun
+ */
+public class StatusTtlPolicy {
+
+    /**
+     * The status of a journey that is over does not change anymore
+     */
+    public static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+    private static final long ONE_DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Berths are fixed once the chart is prepared
+     */
+    static final long CHART_PREPARED_TTL_MS = TimeUnit.HOURS.toMillis(12);
+    static final long CONFIRMED_TTL_MS = TimeUnit.HOURS.toMillis(6);
+    static final long CONFIRMED_NEAR_DEPARTURE_TTL_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * A waitlisted or RAC ticket moves up quicker as the journey comes closer
+     */
+    static final long WAITING_TTL_MS = TimeUnit.HOURS.toMillis(2);
+    static final long WAITING_WITHIN_DAYS_TTL_MS = TimeUnit.MINUTES.toMillis(30);
+    static final long WAITING_WITHIN_DAY_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int WAITING_WITHIN_DAYS = 3;
+
+    /**
+     * For a status whose journey date could not be read
+     */
+    static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(15);
+
+    /**
+     * @param statusVo the status
+     * @param now      the current time in milliseconds
+     * @return the time in milliseconds for which the status stays fresh, NEVER_EXPIRES for a past journey
+     */
+    public long getTtlMs(final PNRStatusVo statusVo, final long now) {
+        long journeyTime = getJourneyTime(statusVo);
+        if (journeyTime > 0 && journeyTime + ONE_DAY_MS <= now) {
+            return NEVER_EXPIRES;
+        }
+
+        String statusClass = PNRUtils.getStatusClass(statusVo.getCurrentStatus());
+        boolean confirmed = AppConstants.STATUS_CNF.equals(statusClass);
+        if (confirmed && PNRUtils.isChartPrepared(statusVo.getChartStatus())) {
+            return CHART_PREPARED_TTL_MS;
+        }
+        if (journeyTime <= 0) {
+            return DEFAULT_TTL_MS;
+        }
+
+        long timeToJourney = journeyTime - now;
+        if (confirmed) {
+            return timeToJourney > ONE_DAY_MS ? CONFIRMED_TTL_MS : CONFIRMED_NEAR_DEPARTURE_TTL_MS;
+        }
+        if (timeToJourney <= ONE_DAY_MS) {
+            return WAITING_WITHIN_DAY_TTL_MS;
+        }
+        if (timeToJourney <= WAITING_WITHIN_DAYS * ONE_DAY_MS) {
+            return WAITING_WITHIN_DAYS_TTL_MS;
+        }
+        return WAITING_TTL_MS;
+    }
+
+    /**
+     * @return the start of the journey day, 0 if it is not known
+     */
+    private static long getJourneyTime(final PNRStatusVo statusVo) {
+        if (statusVo.getJourneyDateTimeStamp() > 0) {
+            return statusVo.getJourneyDateTimeStamp();
+        }
+        return PNRUtils.getJourneyTimeStamp(statusVo.getTrainJourneyDate());
+    }
+}
@@ -33,6 +33,7 @@ public interface AppConstants {
     // flag to indicate running in development mode
     boolean IS_DEV_MODE = Boolean.valueOf("false");
     String PREF_KEY_DEV_STUB = "pref_key_dev_stub";
+    String PREF_KEY_LOOKUP_MODE = "pref_lookup_mode";
 
     String APP_ACTION = "action";
     String PNR_NUMBER = "pnr_number";
@@ -78,6 +79,7 @@ public interface AppConstants {
      * Request Methods
      */
     String METHOD_GET = "GET";
+    String METHOD_HEAD = "HEAD";
     String METHOD_POST = "POST";
 
 }
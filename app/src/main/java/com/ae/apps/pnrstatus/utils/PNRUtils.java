@@ -24,19 +24,16 @@
 
 package com.ae.apps.pnrstatus.utils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
-import android.util.Log;
-
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.NetworkService;
 import com.ae.apps.pnrstatus.vo.MessageVo;
 import com.ae.apps.pnrstatus.vo.PNRStatusVo;
 import com.ae.apps.pnrstatus.vo.PassengerDataVo;
@@ -49,9 +46,12 @@ import com.ae.apps.pnrstatus.vo.PassengerDataVo;
  */
 public class PNRUtils {
 	private static final String	TD_END	= "</td>";
+	private static final String TRAIN_PNR_DATA_BLOCK_STYLE = "table table-striped table-bordered";
 	private static final String	TD_START	= "<td";
 	private static final String TABLE_START = "<table";
 	private static final String TABLE_END = "</table>";
+	private static final String CHARTING_STATUS = "Charting Status";
+	private static final int SECTION_READ_BUFFER_SIZE = 4 * 1024;
 
 	/**
 	 * Connects with the url as a GET request and retrieves the response
@@ -59,49 +59,36 @@ public class PNRUtils {
 	 * @param url
 	 * @return
 	 * @throws IOException
+	 * @deprecated use {@link NetworkService#doGetRequest(String)}
 	 */
+	@Deprecated
 	public static String getWebResult(String url) throws IOException {
 		return getWebResult(url, AppConstants.METHOD_GET);
 	}
 
 	/**
-	 * Connects with the url as a required type and retrieves the response.
+	 * Connects with the url as a required type and retrieves the response. The request goes through the shared
+	 * transport in NetworkService.
 	 * 
 	 * @param url
 	 * @param requestMethod
 	 * @return
 	 * @throws IOException
+	 * @deprecated use {@link NetworkService#doGetRequest(String)} or
+	 *             {@link NetworkService#doPostRequest(String, java.util.Map, java.util.Map)}
 	 */
+	@Deprecated
 	public static String getWebResult(String url, String requestMethod) throws IOException {
-		String line = null;
-		StringBuilder sb = null;
-		String strQueryResponse = null;
-		HttpURLConnection urlConnection = null;
-
-		// Make a connection to the url
-		urlConnection = (HttpURLConnection) new URL(url).openConnection();
-		urlConnection.setRequestMethod(requestMethod);
-		urlConnection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-		// urlConnection.setRequestProperty("Content-Language", "en-US");
-		// urlConnection.setDoInput(true);
-		urlConnection.setConnectTimeout(10000);
-		urlConnection.connect();
-
-		// Read data from the resource pointed by the urlConnection
-		InputStream in = urlConnection.getInputStream();
-		BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-
-		sb = new StringBuilder();
-		while ((line = reader.readLine()) != null) {
-			sb.append(line + "\n");
+		try {
+			if (AppConstants.METHOD_POST.equals(requestMethod)) {
+				return NetworkService.getInstance().doPostRequest(url,
+						Collections.singletonMap("Content-Type", "application/x-www-form-urlencoded"), null);
+			}
+			return NetworkService.getInstance().doGetRequest(url);
+		} catch (StatusException e) {
+			// Keep the StatusException, so that callers can still tell a timeout from a parse error
+			throw new IOException(e.getMessage(), e);
 		}
-
-		// Close the reader and disconenct the urlConnection
-		reader.close();
-		urlConnection.disconnect();
-
-		strQueryResponse = sb.toString();
-		return strQueryResponse;
 	}
 
 	/**
@@ -201,6 +188,23 @@ public class PNRUtils {
 	private static String	BOLD_END			= "</B>";
 	private static String	IGNORE_TEXT			= "<caption";
 
+	/**
+	 * Parses the indianrail page while it is being read. Reading stops once the cell that holds the charting
+	 * status, which is the last cell that we need, has been read. The end is looked for only after the value cell
+	 * has started, as the heading cell before it may be closed with the same tag.
+	 * 
+	 * @param reader
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<String> parseIndianRailHtml(Reader reader) throws IOException {
+		String section = readSection(reader, MATCH_START, MATCH_END, CHARTING_STATUS, MATCH_START);
+		if (null == section) {
+			return new ArrayList<String>();
+		}
+		return parseIndianRailHtml(section);
+	}
+
 	/**
 	 * Returns a list of elements corresponding to rows in the html. Tightly coupled to indianrail.info site
 	 * 
@@ -231,7 +235,7 @@ public class PNRUtils {
 				}
 				if (buffer.indexOf(IGNORE_TEXT) == -1) {
 					elements.add(buffer);
-					Log.d(AppConstants.TAG, "Parsed Element Value : " + buffer);
+					Logger.d(AppConstants.TAG, "Parsed Element Value : " + buffer);
 				}
 
 				// Update the startPosition value for the next iteration
@@ -242,8 +246,24 @@ public class PNRUtils {
 		return elements;
 	}
 
+	/**
+	 * Parses the trainspnrstatus page while it is being read. Reading stops at the end of the passengers table,
+	 * so the rest of the page is never downloaded or held in memory.
+	 * 
+	 * @param reader
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<String> parseTrainPnrStatusResponse(Reader reader) throws IOException {
+		String section = readSection(reader, TRAIN_PNR_DATA_BLOCK_STYLE, TABLE_END, CHARTING_STATUS);
+		if (null == section) {
+			return new ArrayList<String>();
+		}
+		return parseTrainPnrStatusResponse(section);
+	}
+
 	public static List<String> parseTrainPnrStatusResponse(final String html){
-		final String DATA_BLOCK_STYLE = "table table-striped table-bordered";
+		final String DATA_BLOCK_STYLE = TRAIN_PNR_DATA_BLOCK_STYLE;
         List<String> elements = new ArrayList();
         if(null != html && html.length() > 0) {
             int startIndex = html.indexOf(DATA_BLOCK_STYLE);
@@ -349,6 +369,59 @@ public class PNRUtils {
 		return pnrStatusVo;
 	}
 
+	/**
+	 * Reads from the reader only as much as needed to return the part of the page that starts with startMarker and
+	 * ends with the first endMarker after the anchorMarkers, which are found one after the other. Text before the
+	 * startMarker is dropped as it is read.
+	 * 
+	 * @return the section, the text read after startMarker if the end is never found, or null if the startMarker
+	 *         is not present
+	 */
+	private static String readSection(Reader reader, String startMarker, String endMarker, String... anchorMarkers)
+			throws IOException {
+		StringBuilder section = new StringBuilder();
+		char[] buffer = new char[SECTION_READ_BUFFER_SIZE];
+		boolean started = false;
+		int anchorsFound = 0;
+		int anchorEnd = 0;
+		int count;
+		while ((count = reader.read(buffer)) != -1) {
+			int searchFrom = section.length();
+			section.append(buffer, 0, count);
+			if (!started) {
+				int startIndex = section.indexOf(startMarker);
+				if (startIndex < 0) {
+					// Keep only the tail which may hold the beginning of the marker
+					int keep = Math.min(section.length(), startMarker.length() - 1);
+					section.delete(0, section.length() - keep);
+					continue;
+				}
+				section.delete(0, startIndex);
+				started = true;
+				searchFrom = 0;
+			}
+			while (anchorsFound < anchorMarkers.length) {
+				String anchorMarker = anchorMarkers[anchorsFound];
+				int anchorIndex = section.indexOf(anchorMarker,
+						Math.max(anchorEnd, searchFrom - anchorMarker.length()));
+				if (anchorIndex < 0) {
+					break;
+				}
+				anchorEnd = anchorIndex + anchorMarker.length();
+				anchorsFound++;
+			}
+			if (anchorsFound < anchorMarkers.length) {
+				continue;
+			}
+			int endIndex = section.indexOf(endMarker, Math.max(anchorEnd, searchFrom - endMarker.length()));
+			if (endIndex > -1) {
+				section.setLength(endIndex + endMarker.length());
+				return section.toString();
+			}
+		}
+		return started ? section.toString() : null;
+	}
+
 	private static String getInnerValue(final String formatted, final String element){
 	    int startIndex = formatted.indexOf("<" + element);
 	    if(startIndex > -1){
@@ -439,6 +512,73 @@ public class PNRUtils {
 		return pnrStatusVo;
 	}
 
+	/**
+	 * Returns the start of the journey day for a journey date like 11-03-2019 or  6- 3-2014, as sent by the
+	 * providers
+	 * 
+	 * @param journeyDate day-month-year, a two digit year is taken to be in this century
+	 * @return the timestamp, 0 if the date can not be read
+	 */
+	public static long getJourneyTimeStamp(String journeyDate) {
+		if (journeyDate == null) {
+			return 0;
+		}
+		String[] parts = journeyDate.replace(" ", "").split("-");
+		if (parts.length != 3) {
+			return 0;
+		}
+		try {
+			int day = Integer.parseInt(parts[0]);
+			int month = Integer.parseInt(parts[1]);
+			int year = Integer.parseInt(parts[2]);
+			if (year < 100) {
+				year += 2000;
+			}
+			Calendar calendar = Calendar.getInstance();
+			calendar.clear();
+			calendar.set(year, month - 1, day);
+			return calendar.getTimeInMillis();
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the class of a ticket status, like CNF/B1/37, S10 , 7,GN, RAC 12 or GNWL 45
+	 * 
+	 * @param status the status as sent by the provider
+	 * @return STATUS_CNF, STATUS_RAC or STATUS_WL from AppConstants, null if the status is not known
+	 */
+	public static String getStatusClass(String status) {
+		if (status == null) {
+			return null;
+		}
+		String compactStatus = status.toUpperCase(Locale.US).replace(" ", "");
+		if (compactStatus.contains("RAC")) {
+			return AppConstants.STATUS_RAC;
+		}
+		if (compactStatus.contains("WL") || compactStatus.contains(AppConstants.STATUS_WL)) {
+			return AppConstants.STATUS_WL;
+		}
+		// A coach and berth, like S10,7 or B1/37, is given only to confirmed tickets
+		if (compactStatus.contains(AppConstants.STATUS_CNF) || compactStatus.matches("[A-Z]+\\d+[/,]\\d+.*")) {
+			return AppConstants.STATUS_CNF;
+		}
+		return null;
+	}
+
+	/**
+	 * @param chartStatus the charting status as sent by the provider
+	 * @return true if the chart has been prepared, after which the berths do not change anymore
+	 */
+	public static boolean isChartPrepared(String chartStatus) {
+		if (chartStatus == null) {
+			return false;
+		}
+		String upperStatus = chartStatus.toUpperCase(Locale.US);
+		return upperStatus.contains("PREPARED") && !upperStatus.contains("NOT");
+	}
+
 	/**
 	 * Beautifies the PNRNumber string with additional spacing for readability
 	 * 
@@ -24,8 +24,12 @@
 
 package com.ae.apps.pnrstatus.v3;
 
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.preference.PreferenceManager;
@@ -41,12 +45,19 @@ import android.widget.ProgressBar;
 import android.widget.Toast;
 
 import com.ae.apps.pnrstatus.adapters.SectionsPagerAdapter;
+import com.ae.apps.pnrstatus.db.StatusCacheStore;
 import com.ae.apps.pnrstatus.exceptions.InvalidServiceException;
 import com.ae.apps.pnrstatus.exceptions.StatusException;
 import com.ae.apps.pnrstatus.fragments.PnrStatusFragment;
 import com.ae.apps.pnrstatus.managers.DataManager;
+import com.ae.apps.pnrstatus.managers.PendingRequestManager;
+import com.ae.apps.pnrstatus.managers.RefreshScheduler;
 import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.LookupMode;
+import com.ae.apps.pnrstatus.service.NetworkService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
 import com.ae.apps.pnrstatus.service.StatusServiceFactory;
+import com.ae.apps.pnrstatus.service.strategy.StatusCache;
 import com.ae.apps.pnrstatus.utils.AppConstants;
 import com.ae.apps.pnrstatus.utils.DialogUtils;
 import com.ae.apps.pnrstatus.utils.Logger;
@@ -56,7 +67,11 @@ import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.AdView;
 import com.google.android.gms.ads.MobileAds;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Midhun
@@ -69,8 +84,19 @@ public class MainActivity extends AppCompatActivity
             String.valueOf(StatusServiceFactory.TRAIN_PNR_STATUS_SERVICE);
     private static final int SETTINGS_REQUEST = 1001;
 
+    private static final String RESPONSE_CACHE_DIR = "responses";
+    private static final long RESPONSE_CACHE_SIZE = 2 * 1024 * 1024;
+
     private Handler mHandler;
     private DataManager mDataManager;
+    private PendingRequestManager mPendingRequests;
+    private RefreshScheduler mRefreshScheduler;
+
+    /**
+     * The checks started by the user from this screen, touched only on the main thread
+     */
+    private final Set<StatusFuture> mChecks = new HashSet<StatusFuture>();
+    private volatile boolean mDestroyed;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -78,6 +104,19 @@ public class MainActivity extends AppCompatActivity
         setContentView(R.layout.activity_main);
 
         mDataManager = new DataManager(this);
+        mPendingRequests = new PendingRequestManager(this);
+        mRefreshScheduler = new RefreshScheduler(new RefreshScheduler.Listener() {
+            @Override
+            public void onRefreshDue(List<String> pnrNumbers) {
+                List<PNRStatusVo> dueStatuses = new ArrayList<PNRStatusVo>();
+                for (PNRStatusVo statusVo : mDataManager.getDataList()) {
+                    if (pnrNumbers.contains(statusVo.getPnrNumber())) {
+                        dueStatuses.add(statusVo);
+                    }
+                }
+                revalidate(dueStatuses);
+            }
+        });
 
         initViewPager();
 
@@ -85,6 +124,136 @@ public class MainActivity extends AppCompatActivity
 
         // Create a new Handler object in the main thread
         mHandler = new Handler();
+
+        NetworkService.getInstance().installCache(new File(getCacheDir(), RESPONSE_CACHE_DIR), RESPONSE_CACHE_SIZE);
+        StatusCache.setStore(new StatusCacheStore(getApplicationContext()));
+        StatusServiceFactory.setEnabledServices(getResources().getStringArray(R.array.serviceValues));
+
+        // Show the last known statuses right away and look up the stale ones again in the background
+        mDataManager.restoreLastKnownStatuses(new DataManager.OnStatusesRestoredListener() {
+            @Override
+            public void onStatusesRestored(List<PNRStatusVo> staleStatuses) {
+                for (PNRStatusVo statusVo : mDataManager.getDataList()) {
+                    mRefreshScheduler.schedule(statusVo);
+                }
+                revalidate(staleStatuses);
+            }
+        });
+
+        prewarmConnection();
+
+        // The connectivity broadcast is sticky, so this also checks the pnrs left over from an earlier run
+        registerReceiver(mConnectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    private final BroadcastReceiver mConnectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            checkPendingPnrs(mPendingRequests.onConnectivityChanged(Utils.isInternetAvailable(context)));
+        }
+    };
+
+    /**
+     * Checks the pnrs that were queued while offline. All of them are started together so that the radio wakes
+     * up once for the whole batch.
+     */
+    private void checkPendingPnrs(final List<String> pnrNumbers) {
+        if (pnrNumbers.isEmpty()) {
+            return;
+        }
+        Logger.d(AppConstants.TAG, "Checking " + pnrNumbers.size() + " pnrs queued while offline");
+        for (PNRStatusVo statusVo : mDataManager.getDataList()) {
+            if (pnrNumbers.contains(statusVo.getPnrNumber())) {
+                checkStatus(statusVo, null);
+            }
+        }
+    }
+
+    /**
+     * Looks up the statuses again without any progress or error shown, a status is replaced once its lookup
+     * succeeds. The last known status stays on a failure.
+     */
+    private void revalidate(final List<PNRStatusVo> staleStatuses) {
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getBaseContext());
+        if (mDestroyed || staleStatuses.isEmpty() || preferences.getBoolean(AppConstants.PREF_KEY_DEV_STUB, false)
+                || !Utils.isInternetAvailable(this)) {
+            return;
+        }
+        try {
+            IStatusService service = getManagedService(preferences);
+            for (final PNRStatusVo statusVo : staleStatuses) {
+                service.getResponseAsync(statusVo.getPnrNumber()).addListener(new StatusFuture.Listener() {
+
+                    @Override
+                    public void onSuccess(final PNRStatusVo result) {
+                        mHandler.post(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                if (!mDestroyed) {
+                                    mDataManager.update(result);
+                                    mRefreshScheduler.schedule(result);
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(StatusException e) {
+                        Logger.d(AppConstants.TAG, "Could not revalidate " + statusVo.getPnrNumber() + ": "
+                                + e.getMessage());
+                    }
+                });
+            }
+        } catch (InvalidServiceException e) {
+            Logger.e(AppConstants.TAG, e.getMessage());
+        }
+    }
+
+    /**
+     * Connects to the selected service while the user is still looking at the list, so that the first check
+     * starts on a warm connection
+     */
+    private void prewarmConnection() {
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getBaseContext());
+        if (preferences.getBoolean(AppConstants.PREF_KEY_DEV_STUB, false) || !Utils.isInternetAvailable(this)) {
+            return;
+        }
+        try {
+            IStatusService service = StatusServiceFactory.getManagedService(getServiceTypePref(preferences));
+            NetworkService.getInstance().prewarm(service.getBaseUrl());
+        } catch (InvalidServiceException e) {
+            Logger.e(AppConstants.TAG, e.getMessage());
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Checks the pnrs that are due only while the list is on screen
+        mRefreshScheduler.start();
+    }
+
+    @Override
+    protected void onPause() {
+        mRefreshScheduler.stop();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mDestroyed = true;
+        unregisterReceiver(mConnectivityReceiver);
+        if (!isChangingConfigurations()) {
+            // The results of the checks have no screen to go to anymore. The background revalidations still fill
+            // the cache, and on a rotation the checks are left to finish so that their results are cached.
+            for (StatusFuture check : new ArrayList<StatusFuture>(mChecks)) {
+                check.cancel(true);
+            }
+        }
+        mChecks.clear();
+        mHandler.removeCallbacksAndMessages(null);
+        super.onDestroy();
     }
 
     private void initViewPager() {
@@ -138,66 +307,66 @@ public class MainActivity extends AppCompatActivity
                     progressBar.setVisibility(View.VISIBLE);
                 }
 
-                // Do network operation in a new thread
-                new Thread(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        Logger.d(AppConstants.TAG, "Check the status in a new thread");
-                        IStatusService service;
-                        try {
-                            SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getBaseContext());
-
-                            String serviceTypePref = getServiceTypePref(preferences);
-
-                            // Get an instance of the service object using the factory
-                            service = StatusServiceFactory.getService(serviceTypePref);
-                            Logger.i(AppConstants.TAG, "Using service " + service.getServiceName());
+                SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getBaseContext());
 
-                            boolean useStub = preferences.getBoolean(AppConstants.PREF_KEY_DEV_STUB, false);
-                            final PNRStatusVo result = service.getResponse(pnrStatusVo.getPnrNumber(), useStub);
+                // Get an instance of the service object using the factory
+                IStatusService service = getManagedService(preferences);
+                Logger.i(AppConstants.TAG, "Using service " + service.getServiceName());
 
-                            // Update the UI from the main thread using the handler
-                            mHandler.post(new Runnable() {
+                // The lookup does not hold a thread while it waits for the network
+                boolean useStub = preferences.getBoolean(AppConstants.PREF_KEY_DEV_STUB, false);
+                final StatusFuture check = service.getResponseAsync(pnrStatusVo.getPnrNumber(), useStub);
+                mChecks.add(check);
+                check.addListener(new StatusFuture.Listener() {
 
-                                @Override
-                                public void run() {
-                                    Log.d(AppConstants.TAG, "About to update the ui");
-                                    mDataManager.update(result);
+                    @Override
+                    public void onSuccess(final PNRStatusVo result) {
+                        // Update the UI from the main thread using the handler
+                        mHandler.post(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                hideProgress(progressBar);
+                                mChecks.remove(check);
+                                if (mDestroyed) {
+                                    return;
                                 }
-                            });
-                        } catch (StatusException e) {
-                            final String exceptionMessage = e.getMessage();
-                            mHandler.post(new Runnable() {
-
-                                @Override
-                                public void run() {
-                                    // Show a toast with the reason for the Status Exception
-                                    String message = getResources().getString(R.string.str_error_parse_error);
-                                    if (AppConstants.IS_DEV_MODE) {
-                                        message = message + " " + exceptionMessage;
-                                    }
-                                    Toast.makeText(getBaseContext(), message, Toast.LENGTH_LONG).show();
+                                Log.d(AppConstants.TAG, "About to update the ui");
+                                mDataManager.update(result);
+                                mRefreshScheduler.schedule(result);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(final StatusException e) {
+                        final String exceptionMessage = e.getMessage();
+                        final int messageId = getErrorMessageId(e.getErrorCode());
+                        mHandler.post(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                hideProgress(progressBar);
+                                mChecks.remove(check);
+                                if (mDestroyed || StatusException.ErrorCodes.CANCELLED == e.getErrorCode()) {
+                                    return;
                                 }
-                            });
-                        } catch (InvalidServiceException e) {
-                            // This shouldn't occur ideally
-                            Logger.e(AppConstants.TAG, e.getMessage());
-                        } finally {
-                            // Stop the ProgressBar on the main thread using the handler
-                            mHandler.post(new Runnable() {
-
-                                @Override
-                                public void run() {
-                                    if (progressBar != null) {
-                                        progressBar.setVisibility(View.INVISIBLE);
-                                    }
+                                // Show a toast with the reason for the Status Exception
+                                String message = getResources().getString(messageId);
+                                if (AppConstants.IS_DEV_MODE) {
+                                    message = message + " " + exceptionMessage;
                                 }
-                            });
-                        }
+                                Toast.makeText(getBaseContext(), message, Toast.LENGTH_LONG).show();
+                            }
+                        });
                     }
-                }).start();
+                });
+            } catch (InvalidServiceException e) {
+                // This shouldn't occur ideally
+                Logger.e(AppConstants.TAG, e.getMessage());
+                hideProgress(progressBar);
             } catch (Exception e) {
+                hideProgress(progressBar);
                 if (AppConstants.IS_DEV_MODE) {
                     // Detailed error message in case of dev mode
                     Toast.makeText(getBaseContext(), "err " + e.getMessage(), Toast.LENGTH_LONG).show();
@@ -206,10 +375,34 @@ public class MainActivity extends AppCompatActivity
                 }
             }
         } else {
-            Toast.makeText(getApplicationContext(), R.string.str_error_no_internet, Toast.LENGTH_LONG).show();
+            // Check the pnr once the network is back
+            mPendingRequests.add(pnrStatusVo.getPnrNumber());
+            Toast.makeText(getApplicationContext(), R.string.str_msg_check_queued, Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private static int getErrorMessageId(final StatusException.ErrorCodes errorCode) {
+        if (StatusException.ErrorCodes.SERVICE_UNAVAILABLE == errorCode) {
+            return R.string.str_error_service_unavailable;
+        }
+        if (StatusException.ErrorCodes.TIMEOUT == errorCode) {
+            return R.string.str_error_timeout;
+        }
+        return R.string.str_error_parse_error;
+    }
+
+    private void hideProgress(final ProgressBar progressBar) {
+        if (progressBar != null) {
+            progressBar.setVisibility(View.INVISIBLE);
         }
     }
 
+    private IStatusService getManagedService(final SharedPreferences preferences) throws InvalidServiceException {
+        LookupMode lookupMode = LookupMode.fromValue(preferences.getString(
+                AppConstants.PREF_KEY_LOOKUP_MODE, LookupMode.DEFAULT.getValue()));
+        return StatusServiceFactory.getManagedService(getServiceTypePref(preferences), lookupMode);
+    }
+
     private String getServiceTypePref(final SharedPreferences preferences) {
         String serviceTypePref = preferences.getString(PREF_KEY_SERVICE, DEFAULT_SERVICE);
 
@@ -257,6 +450,8 @@ public class MainActivity extends AppCompatActivity
 
     @Override
     public void removePnr(PNRStatusVo pnrStatusVo) {
+        mPendingRequests.remove(pnrStatusVo.getPnrNumber());
+        mRefreshScheduler.remove(pnrStatusVo.getPnrNumber());
         mDataManager.remove(pnrStatusVo);
     }
 
@@ -30,6 +30,8 @@ import android.preference.Preference;
 import android.preference.Preference.OnPreferenceChangeListener;
 import android.preference.PreferenceActivity;
 
+import com.ae.apps.pnrstatus.utils.AppConstants;
+
 /**
  * Settings Activity
  * 
@@ -63,5 +65,17 @@ public class SettingsActivity extends PreferenceActivity {
 				return false;
 			}
 		});
+
+		// The summary shows the selected mode through its %s, it has to be set again to show a new selection
+		final ListPreference lookupModePreference = (ListPreference) findPreference(AppConstants.PREF_KEY_LOOKUP_MODE);
+		lookupModePreference.setOnPreferenceChangeListener(new OnPreferenceChangeListener() {
+
+			@Override
+			public boolean onPreferenceChange(Preference preference, Object newValue) {
+				lookupModePreference.setValue(newValue.toString());
+				preference.setSummary(getString(R.string.str_pref_lookup_mode_summary, lookupModePreference.getEntry()));
+				return false;
+			}
+		});
 	}
 }
@@ -52,6 +52,7 @@ public class PNRStatusVo implements Serializable, Comparable<PNRStatusVo> {
 	private List<PassengerDataVo>	passengers;
 	private PassengerDataVo			firstPassengerData;
 	private long					journeyDateTimeStamp;
+	private long					lastUpdated;
 
 	/**
 	 * @return the pnrNumber
@@ -257,6 +258,17 @@ public class PNRStatusVo implements Serializable, Comparable<PNRStatusVo> {
 		this.journeyDateTimeStamp = journeyDateTimeStamp;
 	}
 
+	/**
+	 * @return the time at which this status was found, 0 if it is not known
+	 */
+	public long getLastUpdated() {
+		return lastUpdated;
+	}
+
+	public void setLastUpdated(long lastUpdated) {
+		this.lastUpdated = lastUpdated;
+	}
+
 	public String getChartStatus() {
 		return chartStatus;
 	}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.vo;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+
+/**
+ * The outcome of the lookup of one pnr in a batch, either its status or the reason it could not be found
+ *
+ * @author Midhun
+ */
+public class StatusResultVo {
+
+	private final String			pnrNumber;
+	private final PNRStatusVo		statusVo;
+	private final StatusException	error;
+
+	public StatusResultVo(String pnrNumber, PNRStatusVo statusVo) {
+		this.pnrNumber = pnrNumber;
+		this.statusVo = statusVo;
+		this.error = null;
+	}
+
+	public StatusResultVo(String pnrNumber, StatusException error) {
+		this.pnrNumber = pnrNumber;
+		this.statusVo = null;
+		this.error = error;
+	}
+
+	/**
+	 * @return the pnrNumber
+	 */
+	public String getPnrNumber() {
+		return pnrNumber;
+	}
+
+	/**
+	 * @return the status, null if the lookup failed
+	 */
+	public PNRStatusVo getStatusVo() {
+		return statusVo;
+	}
+
+	/**
+	 * @return the reason the lookup failed, null if it succeeded
+	 */
+	public StatusException getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return null == error;
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.managers;
+
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DataManagerTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+    private static final long ROW_ID = 42;
+
+    private final List<PNRStatusVo> mDataList = new ArrayList<PNRStatusVo>();
+
+    @Test
+    public void testRestoredStatusKeepsTheRowId() {
+        mDataList.add(status(PNR_NUMBER, ROW_ID, 0));
+        PNRStatusVo restored = status(PNR_NUMBER, 0, 1000);
+
+        assertTrue(DataManager.restore(mDataList, restored));
+
+        assertSame(restored, mDataList.get(0));
+        assertEquals(ROW_ID, mDataList.get(0).getRowId());
+    }
+
+    @Test
+    public void testNewerStatusIsNotReplaced() {
+        PNRStatusVo looked = status(PNR_NUMBER, ROW_ID, 2000);
+        mDataList.add(looked);
+
+        assertFalse(DataManager.restore(mDataList, status(PNR_NUMBER, 0, 1000)));
+
+        assertSame(looked, mDataList.get(0));
+    }
+
+    @Test
+    public void testRemovedPnrIsNotRestored() {
+        mDataList.add(status(PNR_NUMBER, ROW_ID, 0));
+
+        assertFalse(DataManager.restore(mDataList, status("2345678901", 0, 1000)));
+
+        assertEquals(1, mDataList.size());
+    }
+
+    private static PNRStatusVo status(final String pnrNumber, final long rowId, final long lastUpdated) {
+        PNRStatusVo statusVo = new PNRStatusVo();
+        statusVo.setPnrNumber(pnrNumber);
+        statusVo.setRowId(rowId);
+        statusVo.setLastUpdated(lastUpdated);
+        return statusVo;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.managers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PendingRequestManagerTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+    private static final String OTHER_PNR_NUMBER = "2345678901";
+
+    private final MemoryStore mStore = new MemoryStore();
+    private final PendingRequestManager mPendingRequests = new PendingRequestManager(mStore);
+
+    @Test
+    public void testQueuedChecksAreFlushedOnceOnReconnect() {
+        assertTrue(mPendingRequests.add(PNR_NUMBER));
+        assertTrue(mPendingRequests.add(OTHER_PNR_NUMBER));
+
+        // Still offline, the checks stay queued
+        assertTrue(mPendingRequests.onConnectivityChanged(false).isEmpty());
+        assertFalse(mPendingRequests.isEmpty());
+
+        List<String> pnrNumbers = mPendingRequests.onConnectivityChanged(true);
+        assertEquals(new HashSet<String>(Arrays.asList(PNR_NUMBER, OTHER_PNR_NUMBER)),
+                new HashSet<String>(pnrNumbers));
+        assertTrue(mPendingRequests.isEmpty());
+        assertTrue(mStore.mPnrNumbers.isEmpty());
+
+        // A later broadcast while online has nothing left to check
+        assertTrue(mPendingRequests.onConnectivityChanged(true).isEmpty());
+    }
+
+    @Test
+    public void testPnrIsQueuedOnce() {
+        assertTrue(mPendingRequests.add(PNR_NUMBER));
+        assertFalse(mPendingRequests.add(PNR_NUMBER));
+
+        assertEquals(Arrays.asList(PNR_NUMBER), mPendingRequests.onConnectivityChanged(true));
+    }
+
+    @Test
+    public void testRemovedPnrIsNotChecked() {
+        mPendingRequests.add(PNR_NUMBER);
+        mPendingRequests.add(OTHER_PNR_NUMBER);
+        mPendingRequests.remove(PNR_NUMBER);
+
+        assertEquals(Arrays.asList(OTHER_PNR_NUMBER), mPendingRequests.onConnectivityChanged(true));
+    }
+
+    @Test
+    public void testQueueSurvivesRestart() {
+        mPendingRequests.add(PNR_NUMBER);
+
+        PendingRequestManager restarted = new PendingRequestManager(mStore);
+
+        assertEquals(Arrays.asList(PNR_NUMBER), restarted.onConnectivityChanged(true));
+    }
+
+    /**
+     * Keeps a copy of the queue, like the preferences do
+     */
+    private static class MemoryStore implements PendingRequestManager.Store {
+        private Set<String> mPnrNumbers = new HashSet<String>();
+
+        @Override
+        public Set<String> read() {
+            return new HashSet<String>(mPnrNumbers);
+        }
+
+        @Override
+        public void write(Set<String> pnrNumbers) {
+            mPnrNumbers = new HashSet<String>(pnrNumbers);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.managers;
+
+import com.ae.apps.pnrstatus.utils.PNRUtils;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RefreshSchedulerTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+    private static final String JOURNEY_DATE = "15-8-2015";
+
+    private final long mJourneyTime = PNRUtils.getJourneyTimeStamp(JOURNEY_DATE);
+
+    @Test
+    public void testWaitlistedIsPolledMoreOftenNearDeparture() {
+        PNRStatusVo statusVo = status("W/L 12", "CHART NOT PREPARED");
+
+        assertEquals(RefreshScheduler.WAITING_INTERVAL_MS, RefreshScheduler.getRefreshIntervalMs(statusVo,
+                mJourneyTime - TimeUnit.DAYS.toMillis(10), 0, false));
+        assertEquals(RefreshScheduler.WAITING_NEAR_DEPARTURE_INTERVAL_MS, RefreshScheduler.getRefreshIntervalMs(
+                statusVo, mJourneyTime - TimeUnit.HOURS.toMillis(2), 0, false));
+    }
+
+    @Test
+    public void testSettledTicketsAreNotPolled() {
+        long now = mJourneyTime - TimeUnit.HOURS.toMillis(2);
+
+        assertEquals(RefreshScheduler.NEVER, RefreshScheduler.getRefreshIntervalMs(
+                status("CNF", "CHART PREPARED"), now, 0, false));
+        assertEquals(RefreshScheduler.NEVER, RefreshScheduler.getRefreshIntervalMs(
+                status("W/L 3", "CHART NOT PREPARED"), mJourneyTime + TimeUnit.DAYS.toMillis(2), 0, false));
+    }
+
+    @Test
+    public void testMovementChangesTheInterval() {
+        PNRStatusVo statusVo = status("RAC 4", "CHART NOT PREPARED");
+        long now = mJourneyTime - TimeUnit.DAYS.toMillis(2);
+        long base = RefreshScheduler.WAITING_WITHIN_DAYS_INTERVAL_MS;
+
+        assertEquals(base / 2, RefreshScheduler.getRefreshIntervalMs(statusVo, now, 0, true));
+        assertEquals(base * 2, RefreshScheduler.getRefreshIntervalMs(statusVo, now, 1, false));
+    }
+
+    @Test
+    public void testDuePnrsAreTakenOnce() {
+        final long[] now = { mJourneyTime - TimeUnit.DAYS.toMillis(2) };
+        RefreshScheduler scheduler = new RefreshScheduler(null) {
+            @Override
+            protected long now() {
+                return now[0];
+            }
+        };
+        PNRStatusVo statusVo = status("W/L 7", "CHART NOT PREPARED");
+        statusVo.setLastUpdated(now[0]);
+        scheduler.schedule(statusVo);
+
+        long dueAt = now[0] + RefreshScheduler.WAITING_WITHIN_DAYS_INTERVAL_MS;
+        assertTrue(scheduler.takeDue(dueAt - 1).isEmpty());
+        List<String> duePnrNumbers = scheduler.takeDue(dueAt);
+        assertEquals(Arrays.asList(PNR_NUMBER), duePnrNumbers);
+        assertTrue(scheduler.takeDue(dueAt).isEmpty());
+    }
+
+    private static PNRStatusVo status(final String currentStatus, final String chartStatus) {
+        PNRStatusVo statusVo = new PNRStatusVo();
+        statusVo.setPnrNumber(PNR_NUMBER);
+        statusVo.setCurrentStatus(currentStatus);
+        statusVo.setChartStatus(chartStatus);
+        statusVo.setTrainJourneyDate(JOURNEY_DATE);
+        return statusVo;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+import com.ae.apps.pnrstatus.vo.StatusResultVo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AbstractStatusServiceTest {
+
+    private static final String INVALID_PNR = "0000000000";
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final AbstractStatusService service = new AbstractStatusService() {
+        @Override
+        public String getServiceName() {
+            return "Test";
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "http://localhost/";
+        }
+
+        @Override
+        public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+            lookups.incrementAndGet();
+            int now = running.incrementAndGet();
+            synchronized (maxRunning) {
+                maxRunning.set(Math.max(maxRunning.get(), now));
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new StatusException("interrupted");
+            } finally {
+                running.decrementAndGet();
+            }
+            if (INVALID_PNR.equals(pnrNumber)) {
+                throw new StatusException("invalid", StatusException.ErrorCodes.PARSE_ERROR);
+            }
+            PNRStatusVo statusVo = new PNRStatusVo();
+            statusVo.setPnrNumber(pnrNumber);
+            return statusVo;
+        }
+
+        @Override
+        public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+            return getResponse(pnrNumber);
+        }
+    };
+
+    @Test
+    public void testAsyncRequestIsParsedWithoutBlockingLookup() throws Exception {
+        FakeStatusService asyncService = new FakeStatusService("AsyncTest") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) {
+                return status("blocking");
+            }
+
+            @Override
+            protected AsyncRequest getAsyncRequest() {
+                return new AsyncRequest() {
+                    @Override
+                    public Cancellable enqueue(String pnrNumber, Object tag,
+                                               NetworkService.ResponseCallback callback) {
+                        callback.onResponse("async");
+                        return new Cancellable() {
+                            @Override
+                            public void cancel() {
+                            }
+
+                            @Override
+                            public boolean isCanceled() {
+                                return false;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public PNRStatusVo parse(String response) {
+                        return status(response);
+                    }
+                };
+            }
+        };
+
+        PNRStatusVo statusVo = asyncService.getResponseAsync("1234567890").get(1, TimeUnit.SECONDS);
+
+        assertEquals("async", statusVo.getTrainName());
+        assertEquals("1234567890", statusVo.getPnrNumber());
+        assertEquals(0, asyncService.getCallCount());
+    }
+
+    @Test
+    public void testNullStubResponseLooksUp() throws Exception {
+        PNRStatusVo statusVo = service.getResponseAsync("1234567890", null).get(1, TimeUnit.SECONDS);
+
+        assertEquals("1234567890", statusVo.getPnrNumber());
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testResultsInOrderWithErrors() {
+        Map<String, StatusResultVo> results = service.getResponses(
+                Arrays.asList("1111111111", INVALID_PNR, "2222222222"));
+
+        assertEquals(Arrays.asList("1111111111", INVALID_PNR, "2222222222"),
+                new ArrayList<String>(results.keySet()));
+        assertTrue(results.get("1111111111").isSuccess());
+        assertEquals("2222222222", results.get("2222222222").getStatusVo().getPnrNumber());
+        assertFalse(results.get(INVALID_PNR).isSuccess());
+        assertEquals(StatusException.ErrorCodes.PARSE_ERROR, results.get(INVALID_PNR).getError().getErrorCode());
+    }
+
+    @Test
+    public void testDuplicatesLookedUpOnce() {
+        Map<String, StatusResultVo> results = service.getResponses(
+                Arrays.asList("1111111111", "1111111111", "2222222222"));
+
+        assertEquals(2, results.size());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testParallelismIsBounded() {
+        ArrayList<String> pnrNumbers = new ArrayList<String>();
+        for (int i = 0; i < 12; i++) {
+            pnrNumbers.add(String.valueOf(1000000000L + i));
+        }
+
+        Map<String, StatusResultVo> results = service.getResponses(pnrNumbers);
+
+        assertEquals(12, results.size());
+        assertEquals(12, lookups.get());
+        assertTrue(maxRunning.get() > 1);
+        assertTrue(maxRunning.get() <= 4);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A provider for the tests of the lookup strategies. The outcome of each lookup is decided by lookUp, and the
+ * lookups are counted. Async lookups go through the blocking fallback of AbstractStatusService.
+ */
+public abstract class FakeStatusService extends AbstractStatusService {
+
+    private final String mName;
+    private final AtomicInteger mCalls = new AtomicInteger();
+
+    public FakeStatusService(final String name) {
+        mName = name;
+    }
+
+    /**
+     * @return a provider whose lookups return a status with its name as the train name
+     */
+    public static FakeStatusService succeeding(final String name) {
+        return new FakeStatusService(name) {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) {
+                return status(name);
+            }
+        };
+    }
+
+    /**
+     * @return a provider whose lookups fail with the error code
+     */
+    public static FakeStatusService failing(final String name, final ErrorCodes errorCode) {
+        return new FakeStatusService(name) {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                throw new StatusException(name + " failed", errorCode);
+            }
+        };
+    }
+
+    /**
+     * @return a status with the train name set, to tell the providers apart
+     */
+    public static PNRStatusVo status(final String trainName) {
+        PNRStatusVo statusVo = new PNRStatusVo();
+        statusVo.setTrainName(trainName);
+        return statusVo;
+    }
+
+    /**
+     * Decides the outcome of a lookup
+     */
+    protected abstract PNRStatusVo lookUp(String pnrNumber) throws StatusException;
+
+    /**
+     * @return the number of lookups made so far
+     */
+    public int getCallCount() {
+        return mCalls.get();
+    }
+
+    @Override
+    public String getServiceName() {
+        return mName;
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return "http://localhost/";
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber) throws StatusException {
+        mCalls.incrementAndGet();
+        return lookUp(pnrNumber);
+    }
+
+    @Override
+    public PNRStatusVo getResponse(String pnrNumber, Boolean stubResponse) throws StatusException {
+        return getResponse(pnrNumber);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.network.Cancellable;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class StatusFutureTest {
+
+    private final List<String> events = new ArrayList<String>();
+
+    private final StatusFuture.Listener listener = new StatusFuture.Listener() {
+        @Override
+        public void onSuccess(PNRStatusVo statusVo) {
+            events.add("success " + statusVo.getPnrNumber());
+        }
+
+        @Override
+        public void onFailure(StatusException e) {
+            events.add("failure " + e.getErrorCode());
+        }
+    };
+
+    @Test
+    public void testListenersSeeTheResultOnce() throws Exception {
+        StatusFuture future = new StatusFuture();
+        future.addListener(listener);
+
+        PNRStatusVo statusVo = new PNRStatusVo();
+        statusVo.setPnrNumber("1234567890");
+        assertTrue(future.complete(statusVo));
+        assertFalse(future.fail(new StatusException("late", StatusException.ErrorCodes.PARSE_ERROR)));
+        // A listener added later is told right away
+        future.addListener(listener);
+
+        assertEquals(2, events.size());
+        assertEquals("success 1234567890", events.get(0));
+        assertSame(statusVo, future.get());
+        assertSame(statusVo, future.getStatus());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        StatusFuture future = StatusFuture.failed(
+                new StatusException("invalid", StatusException.ErrorCodes.PARSE_ERROR));
+
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StatusException);
+        }
+        try {
+            future.getStatus();
+            fail();
+        } catch (StatusException e) {
+            assertEquals(StatusException.ErrorCodes.PARSE_ERROR, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testCancelCancelsTheRequest() throws Exception {
+        final boolean[] requestCancelled = new boolean[1];
+        StatusFuture future = new StatusFuture();
+        future.addListener(listener);
+        future.setCancellable(new Cancellable() {
+            @Override
+            public void cancel() {
+                requestCancelled[0] = true;
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return requestCancelled[0];
+            }
+        });
+
+        assertTrue(future.cancel(true));
+
+        assertTrue(requestCancelled[0]);
+        assertTrue(future.isCancelled());
+        assertFalse(future.complete(new PNRStatusVo()));
+        assertEquals("failure CANCELLED", events.get(0));
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service;
+
+import com.ae.apps.pnrstatus.exceptions.InvalidServiceException;
+import com.ae.apps.pnrstatus.service.strategy.AdaptiveStatusService;
+import com.ae.apps.pnrstatus.service.strategy.CircuitBreakerStatusService;
+import com.ae.apps.pnrstatus.service.strategy.CoalescingStatusService;
+import com.ae.apps.pnrstatus.service.strategy.HedgedStatusService;
+import com.ae.apps.pnrstatus.service.strategy.MonitoredStatusService;
+import com.ae.apps.pnrstatus.service.strategy.NegativeCacheStatusService;
+import com.ae.apps.pnrstatus.service.strategy.StatusCache;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StatusServiceFactoryTest {
+
+    private static final String INDIAN_RAIL_SERVICE = "3";
+    private static final String TRAIN_PNR_STATUS_SERVICE =
+            String.valueOf(StatusServiceFactory.TRAIN_PNR_STATUS_SERVICE);
+
+    @After
+    public void tearDown() {
+        StatusServiceFactory.setEnabledServices(null);
+    }
+
+    @Test
+    public void testServicesAreReused() throws Exception {
+        assertSame(StatusServiceFactory.getService(TRAIN_PNR_STATUS_SERVICE),
+                StatusServiceFactory.getService(StatusServiceFactory.TRAIN_PNR_STATUS_SERVICE));
+
+        IStatusService managed = StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE);
+        assertSame(managed, StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE, LookupMode.DEFAULT));
+        IStatusService hedged = StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE, LookupMode.HEDGED);
+        assertSame(hedged, StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE, LookupMode.HEDGED));
+        assertNotSame(managed, hedged);
+        assertNotSame(managed, StatusServiceFactory.getManagedService(INDIAN_RAIL_SERVICE));
+    }
+
+    @Test
+    public void testManagedServiceWrapsTheProviderInOrder() throws Exception {
+        IStatusService managed = StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE);
+
+        IStatusService provider = unwrapGuard(unwrapManaged(managed));
+        assertSame(StatusServiceFactory.getService(TRAIN_PNR_STATUS_SERVICE), provider);
+    }
+
+    @Test
+    public void testLookupModeIsAppliedInsideTheCaching() throws Exception {
+        IStatusService hedged = StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE, LookupMode.HEDGED);
+        IStatusService auto = StatusServiceFactory.getManagedService(
+                String.valueOf(StatusServiceFactory.AUTO_SERVICE), LookupMode.RACE);
+
+        assertTrue(unwrapManaged(hedged) instanceof HedgedStatusService);
+        // The provider is chosen for each lookup, the mode does not apply
+        assertTrue(unwrapManaged(auto) instanceof AdaptiveStatusService);
+    }
+
+    @Test
+    public void testAlternatesAreTheEnabledProviders() throws Exception {
+        StatusServiceFactory.setEnabledServices(new String[]{TRAIN_PNR_STATUS_SERVICE, INDIAN_RAIL_SERVICE, "0"});
+
+        List<IStatusService> alternates =
+                StatusServiceFactory.getAlternateServices(StatusServiceFactory.TRAIN_PNR_STATUS_SERVICE);
+
+        assertEquals(1, alternates.size());
+        assertSame(StatusServiceFactory.getService(INDIAN_RAIL_SERVICE), alternates.get(0));
+    }
+
+    @Test
+    public void testAllProvidersAreAlternatesUntilEnabled() throws Exception {
+        assertEquals(5, StatusServiceFactory.getAlternateServices(
+                StatusServiceFactory.TRAIN_PNR_STATUS_SERVICE).size());
+    }
+
+    @Test
+    public void testManagedServicesAreRebuiltForTheEnabledProviders() throws Exception {
+        IStatusService race = StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE, LookupMode.RACE);
+
+        StatusServiceFactory.setEnabledServices(new String[]{TRAIN_PNR_STATUS_SERVICE});
+
+        assertNotSame(race, StatusServiceFactory.getManagedService(TRAIN_PNR_STATUS_SERVICE, LookupMode.RACE));
+        assertTrue(StatusServiceFactory.getAlternateServices(StatusServiceFactory.TRAIN_PNR_STATUS_SERVICE).isEmpty());
+    }
+
+    @Test(expected = InvalidServiceException.class)
+    public void testAutoNeedsAnEnabledProvider() throws Exception {
+        StatusServiceFactory.setEnabledServices(new String[]{"0"});
+
+        StatusServiceFactory.getManagedService("0");
+    }
+
+    /**
+     * @return the service inside the caching common to all the managed services
+     */
+    private static IStatusService unwrapManaged(final IStatusService managed) {
+        assertTrue(managed instanceof StatusCache);
+        IStatusService negativeCache = ((StatusCache) managed).getDelegate();
+        assertTrue(negativeCache instanceof NegativeCacheStatusService);
+        IStatusService coalescing = ((NegativeCacheStatusService) negativeCache).getDelegate();
+        assertTrue(coalescing instanceof CoalescingStatusService);
+        return ((CoalescingStatusService) coalescing).getDelegate();
+    }
+
+    /**
+     * @return the provider inside its circuit breaker and monitoring
+     */
+    private static IStatusService unwrapGuard(final IStatusService guarded) {
+        assertTrue(guarded instanceof CircuitBreakerStatusService);
+        IStatusService monitored = ((CircuitBreakerStatusService) guarded).getDelegate();
+        assertTrue(monitored instanceof MonitoredStatusService);
+        return ((MonitoredStatusService) monitored).getDelegate();
+    }
+}
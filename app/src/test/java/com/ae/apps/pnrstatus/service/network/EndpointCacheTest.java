@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EndpointCacheTest {
+
+    private static final String PAGE = "http://www.indianrail.gov.in/pnr_Enq.html";
+    private static final String FORM = "http://www.indianrail.gov.in/cgi_bin/inet_pnstat_cgi_10521.cgi";
+    private static final String MOVED_FORM = "http://www.indianrail.gov.in/cgi_bin/inet_pnstat_cgi_24335.cgi";
+    private static final long TTL_MS = 1000;
+
+    private long time = 5000;
+
+    private final EndpointCache cache = new EndpointCache(TTL_MS) {
+        @Override
+        protected long now() {
+            return time;
+        }
+    };
+
+    @Test
+    public void testUrlIsKeptWithinTtl() {
+        cache.put(PAGE, FORM);
+        time += TTL_MS - 1;
+
+        assertEquals(FORM, cache.get(PAGE));
+    }
+
+    @Test
+    public void testUrlExpiresAfterTtl() {
+        cache.put(PAGE, FORM);
+        time += TTL_MS;
+
+        assertNull(cache.get(PAGE));
+    }
+
+    @Test
+    public void testInvalidateRemovesTheFailedUrl() {
+        cache.put(PAGE, FORM);
+        cache.invalidate(PAGE, FORM);
+
+        assertNull(cache.get(PAGE));
+    }
+
+    @Test
+    public void testInvalidateKeepsAUrlFoundMeanwhile() {
+        cache.put(PAGE, FORM);
+        cache.put(PAGE, MOVED_FORM);
+        cache.invalidate(PAGE, FORM);
+
+        assertEquals(MOVED_FORM, cache.get(PAGE));
+    }
+}
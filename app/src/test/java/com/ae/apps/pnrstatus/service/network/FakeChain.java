@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import java.io.IOException;
+
+/**
+ * The end of an interceptor chain for the tests of the interceptors. Every request is answered with the same
+ * code and body, or fails with the same exception, and the requests that reach the network are counted.
+ */
+class FakeChain implements Interceptor.Chain {
+
+    private static final MediaType TEXT = MediaType.parse("text/html; charset=utf-8");
+
+    private final int mCode;
+    private final MediaType mContentType;
+    private final String mBody;
+    private final IOException mFailure;
+    private Request mRequest;
+    private int mNetworkCalls;
+
+    FakeChain(final int code, final String body) {
+        this(code, TEXT, body);
+    }
+
+    FakeChain(final int code, final MediaType contentType, final String body) {
+        mCode = code;
+        mContentType = contentType;
+        mBody = body;
+        mFailure = null;
+    }
+
+    /**
+     * @param failure thrown for every request that reaches the network
+     */
+    FakeChain(final IOException failure) {
+        mCode = 0;
+        mContentType = null;
+        mBody = null;
+        mFailure = failure;
+    }
+
+    /**
+     * Sends the request through the interceptor, with this chain behind it
+     */
+    Response call(final Interceptor interceptor, final Request request) throws IOException {
+        mRequest = request;
+        return interceptor.intercept(this);
+    }
+
+    int getNetworkCalls() {
+        return mNetworkCalls;
+    }
+
+    @Override
+    public Request request() {
+        return mRequest;
+    }
+
+    @Override
+    public Response proceed(final Request request) throws IOException {
+        mNetworkCalls++;
+        if (null != mFailure) {
+            throw mFailure;
+        }
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(mCode)
+                .message("OK")
+                .body(ResponseBody.create(mContentType, mBody))
+                .build();
+    }
+
+    @Override
+    public Connection connection() {
+        return null;
+    }
+}
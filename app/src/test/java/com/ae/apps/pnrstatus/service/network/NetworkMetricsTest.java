@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NetworkMetricsTest {
+
+    private static final String SERVICE_NAME = "MetricsTest";
+    private static final String DOWN_SERVICE_NAME = "MetricsTest-Down";
+    private static final String STATUS_PAGE = "<table>CNF</table>";
+    private static final String FORM_BODY = "pnr=4119806693";
+    private static final MediaType FORM = MediaType.parse("application/x-www-form-urlencoded");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private final OkHttpClient client = new OkHttpClient();
+
+    private ServerSocket server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        serve(server);
+
+        ResponseCache cache = new ResponseCache();
+        cache.setTtl("127.0.0.1", 60 * 1000, ResponseCache.HTML);
+        cache.open(folder.newFolder(), 1024 * 1024);
+
+        // In the same order as NetworkService
+        client.setConnectTimeout(1, TimeUnit.SECONDS);
+        client.setReadTimeout(1, TimeUnit.SECONDS);
+        client.interceptors().add(metrics.getCallInterceptor());
+        client.interceptors().add(cache);
+        client.interceptors().add(metrics.getAttemptInterceptor());
+        client.networkInterceptors().add(metrics.getNetworkInterceptor());
+
+        metrics.setServiceName("127.0.0.1", SERVICE_NAME);
+        metrics.setServiceName("localhost", DOWN_SERVICE_NAME);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testRequestsShareOneConnection() throws IOException {
+        call("4119806693");
+        call("4119806694");
+
+        NetworkMetrics.Snapshot snapshot = metrics.snapshot().get(SERVICE_NAME);
+        assertEquals(2, snapshot.getCalls());
+        assertEquals(2, snapshot.getRequests());
+        assertEquals(1, snapshot.getNewConnections());
+        assertEquals(0, snapshot.getTlsConnections());
+        assertEquals(0, snapshot.getCacheHits());
+        assertEquals(0, snapshot.getFailures());
+        // The bodies, plus the request lines and headers
+        assertTrue(snapshot.getBytesSent() > 2 * FORM_BODY.length());
+        assertTrue(snapshot.getBytesReceived() > 2 * STATUS_PAGE.length());
+    }
+
+    @Test
+    public void testCacheHitSendsNothing() throws IOException {
+        call("4119806693");
+        NetworkMetrics.Snapshot first = metrics.snapshot().get(SERVICE_NAME);
+        call("4119806693");
+        NetworkMetrics.Snapshot second = metrics.snapshot().get(SERVICE_NAME);
+
+        assertEquals(2, second.getCalls());
+        assertEquals(1, second.getRequests());
+        assertEquals(1, second.getCacheHits());
+        assertEquals(first.getBytesSent(), second.getBytesSent());
+        assertEquals(first.getBytesReceived(), second.getBytesReceived());
+    }
+
+    @Test
+    public void testFailuresAreCountedForTheirService() throws IOException {
+        int closedPort;
+        ServerSocket closed = new ServerSocket(0);
+        closedPort = closed.getLocalPort();
+        closed.close();
+
+        try {
+            client.newCall(new Request.Builder()
+                    .url("http://localhost:" + closedPort + "/status")
+                    .post(RequestBody.create(FORM, FORM_BODY))
+                    .build()).execute();
+            fail();
+        } catch (IOException e) {
+            // Expected, nothing listens on the port
+        }
+
+        NetworkMetrics.Snapshot snapshot = metrics.snapshot().get(DOWN_SERVICE_NAME);
+        assertEquals(1, snapshot.getCalls());
+        assertEquals(1, snapshot.getFailures());
+        assertEquals(0, snapshot.getRequests());
+        assertNull(metrics.snapshot().get(SERVICE_NAME));
+    }
+
+    private void call(final String pnrNumber) throws IOException {
+        Response response = client.newCall(new Request.Builder()
+                .url("http://127.0.0.1:" + server.getLocalPort() + "/status")
+                .post(RequestBody.create(FORM, "pnr=" + pnrNumber))
+                .build()).execute();
+        assertEquals(STATUS_PAGE, response.body().string());
+    }
+
+    /**
+     * Answers every request with the status page, keeping the connections open
+     */
+    private static void serve(final ServerSocket server) {
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = server.accept();
+                        Thread connection = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                answer(socket);
+                            }
+                        });
+                        connection.setDaemon(true);
+                        connection.start();
+                    }
+                } catch (IOException e) {
+                    // Closed by tearDown
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private static void answer(final Socket socket) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            OutputStream out = socket.getOutputStream();
+            String line;
+            while (null != (line = in.readLine())) {
+                int contentLength = 0;
+                while (null != line && !line.isEmpty()) {
+                    if (line.toLowerCase().startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                    }
+                    line = in.readLine();
+                }
+                // The form bodies are ascii, so chars and bytes are the same
+                in.skip(contentLength);
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: "
+                        + STATUS_PAGE.length() + "\r\n\r\n" + STATUS_PAGE).getBytes("UTF-8"));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignored
+            }
+        }
+    }
+}
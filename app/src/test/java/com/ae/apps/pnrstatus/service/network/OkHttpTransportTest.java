@@ -0,0 +1,268 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class OkHttpTransportTest {
+
+    private static final String STATUS_PAGE = "<table>CNF</table>";
+    private static final long CALL_TIMEOUT_MS = 5000;
+    private static final long SHORT_CALL_TIMEOUT_MS = 300;
+
+    private final OkHttpClient client = new OkHttpClient();
+    private final Semaphore heldRequests = new Semaphore(0);
+
+    private ServerSocket server;
+    private OkHttpTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        serve(server, heldRequests);
+
+        // The read timeout is well past the deadlines, so only a deadline or a cancel can end a slow call
+        client.setReadTimeout(10, TimeUnit.SECONDS);
+        transport = new OkHttpTransport(client, CALL_TIMEOUT_MS);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testCallPastTheDeadlineTimesOut() {
+        OkHttpTransport impatient = new OkHttpTransport(client, SHORT_CALL_TIMEOUT_MS);
+        long start = System.nanoTime();
+        try {
+            impatient.execute(request("/slow", "deadline"));
+            fail();
+        } catch (CallCanceledException e) {
+            fail("A call past its deadline is not cancelled by the app");
+        } catch (IOException e) {
+            assertTrue(e instanceof InterruptedIOException);
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, impatient.getActiveCallCount());
+    }
+
+    @Test
+    public void testTagCancelsBlockingCall() throws Exception {
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        Thread lookup = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    transport.execute(request("/slow", "blocking"));
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            }
+        });
+
+        lookup.start();
+        awaitHeldRequest();
+        transport.cancel("blocking");
+        lookup.join(1000);
+
+        assertFalse(lookup.isAlive());
+        assertTrue(failure.get() instanceof CallCanceledException);
+        assertEquals(0, transport.getActiveCallCount());
+    }
+
+    @Test
+    public void testTagCancelsOnlyItsEnqueuedCalls() throws Exception {
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        final AtomicReference<String> body = new AtomicReference<String>();
+
+        transport.enqueue(request("/slow", "enqueued"), new HttpTransport.Callback() {
+            @Override
+            public void onResponse(String response) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                failure.set(e);
+                done.countDown();
+            }
+        });
+        awaitHeldRequest();
+        transport.cancel("enqueued");
+        transport.enqueue(request("/status", "other"), new HttpTransport.Callback() {
+            @Override
+            public void onResponse(String response) {
+                body.set(response);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof CallCanceledException);
+        assertEquals(STATUS_PAGE, body.get());
+        awaitActiveCalls(0);
+    }
+
+    @Test
+    public void testCompletedCallsAreNoLongerActive() throws Exception {
+        assertEquals(STATUS_PAGE, transport.execute(request("/status", "execute")));
+        assertEquals(0, transport.getActiveCallCount());
+
+        StreamingBody body = transport.open(request("/status", "open"));
+        assertEquals(1, transport.getActiveCallCount());
+        body.close();
+        assertEquals(0, transport.getActiveCallCount());
+
+        final CountDownLatch done = new CountDownLatch(1);
+        transport.enqueue(request("/status", "enqueue"), new HttpTransport.Callback() {
+            @Override
+            public void onResponse(String response) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(0, transport.getActiveCallCount());
+    }
+
+    private Request request(final String path, final Object tag) {
+        return new Request.Builder()
+                .url("http://127.0.0.1:" + server.getLocalPort() + path)
+                .tag(tag)
+                .build();
+    }
+
+    /**
+     * A cancel that reaches okhttp while it is still connecting is lost, so a call is cancelled only once the
+     * server holds its request
+     */
+    private void awaitHeldRequest() throws InterruptedException {
+        assertTrue(heldRequests.tryAcquire(2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * The transport registers a call right before it starts, wait till it has the expected number of calls
+     */
+    private void awaitActiveCalls(final int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (transport.getActiveCallCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, transport.getActiveCallCount());
+    }
+
+    /**
+     * Answers every request with the status page, except those to /slow which are never answered
+     */
+    private static void serve(final ServerSocket server, final Semaphore heldRequests) {
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = server.accept();
+                        Thread connection = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                answer(socket, heldRequests);
+                            }
+                        });
+                        connection.setDaemon(true);
+                        connection.start();
+                    }
+                } catch (IOException e) {
+                    // Closed by tearDown
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private static void answer(final Socket socket, final Semaphore heldRequests) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            OutputStream out = socket.getOutputStream();
+            String requestLine;
+            while (null != (requestLine = in.readLine())) {
+                String line = requestLine;
+                while (null != line && !line.isEmpty()) {
+                    line = in.readLine();
+                }
+                if (requestLine.contains(" /slow ")) {
+                    // Hold the call till the client gives up on it
+                    heldRequests.release();
+                    while (-1 != in.read()) {
+                        // Nothing is sent on a held call
+                    }
+                    return;
+                }
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: "
+                        + STATUS_PAGE.length() + "\r\n\r\n" + STATUS_PAGE).getBytes("UTF-8"));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignored
+            }
+        }
+    }
+}
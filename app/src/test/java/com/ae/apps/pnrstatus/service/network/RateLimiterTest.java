@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private long currentNanos;
+
+    private RateLimiter limiter;
+
+    @Before
+    public void setUp() {
+        currentNanos = 0;
+        limiter = new RateLimiter(2, 3) {
+            @Override
+            protected long nowNanos() {
+                return currentNanos;
+            }
+
+            @Override
+            protected void sleep(long nanos) {
+                currentNanos += nanos;
+            }
+        };
+    }
+
+    @Test
+    public void testBurstGoesWithoutWaiting() {
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    public void testRequestsOverTheBurstAreQueuedInOrder() {
+        drainBurst();
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(INTERVAL_NANOS, limiter.reserve());
+        assertEquals(2 * INTERVAL_NANOS, limiter.reserve());
+    }
+
+    @Test
+    public void testTokensRefillWhileIdle() {
+        drainBurst();
+        limiter.reserve();
+
+        currentNanos += 3 * INTERVAL_NANOS;
+
+        // One interval paid off the last reservation, two tokens were stored in the other two
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(INTERVAL_NANOS, limiter.reserve());
+    }
+
+    @Test
+    public void testStoredTokensAreCappedAtBurst() {
+        currentNanos += 100 * INTERVAL_NANOS;
+
+        drainBurst();
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(INTERVAL_NANOS, limiter.reserve());
+    }
+
+    @Test
+    public void testAcquireWaitsForItsToken() throws InterruptedException {
+        drainBurst();
+        limiter.acquire();
+        long before = currentNanos;
+
+        limiter.acquire();
+
+        assertEquals(INTERVAL_NANOS, currentNanos - before);
+    }
+
+    private void drainBurst() {
+        for (int i = 0; i < 3; i++) {
+            limiter.reserve();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.FormEncodingBuilder;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class RequestTemplateTest {
+
+    private static final String URL = "http://template.test/pnr";
+
+    /**
+     * The names of the pnr param of trainspnrstatus.com, pnrstatus.in and irctc-pnr-status.com
+     */
+    private static final String[] PNR_PARAMS = {"lccp_pnrno1", "code", "pnr"};
+
+    private static final String[] VALUES = {
+            "4119806693",
+            "",
+            "411 980+6693",
+            "a&b=c%d",
+            "~*'!()_.-",
+            "\"#$,/:;<>?@[\\]^`{|}",
+            "é€😀"
+    };
+
+    @Test
+    public void testBodyMatchesFormEncodingForProviderParams() throws IOException {
+        for (String param : PNR_PARAMS) {
+            RequestTemplate template = RequestTemplate.forPost(URL, null, null, param);
+            for (String value : VALUES) {
+                RequestBody expected = new FormEncodingBuilder().add(param, value).build();
+                assertEquals(param + "=" + value, bodyOf(expected), bodyOf(template.newRequest(null, value).body()));
+            }
+        }
+    }
+
+    @Test
+    public void testBodyMatchesFormEncodingForEveryAsciiCharacter() throws IOException {
+        RequestTemplate template = RequestTemplate.forPost(URL, null, null, "pnr");
+        for (char c = ' '; c < 127; c++) {
+            String value = String.valueOf(c);
+            RequestBody expected = new FormEncodingBuilder().add("pnr", value).build();
+            assertEquals(value, bodyOf(expected), bodyOf(template.newRequest(null, value).body()));
+        }
+    }
+
+    @Test
+    public void testFixedParamsComeBeforeVariableParams() throws IOException {
+        Map<String, String> fixedParams = new LinkedHashMap<String, String>();
+        fixedParams.put("lang", "en us");
+        fixedParams.put("a&b", "c=d");
+        RequestTemplate template = RequestTemplate.forPost(URL, null, fixedParams, "pnr", "class name");
+
+        Request request = template.newRequest("tag", "4119806693", "3A+SL");
+
+        RequestBody expected = new FormEncodingBuilder()
+                .add("lang", "en us")
+                .add("a&b", "c=d")
+                .add("pnr", "4119806693")
+                .add("class name", "3A+SL")
+                .build();
+        assertEquals(bodyOf(expected), bodyOf(request.body()));
+        assertEquals(expected.contentType(), request.body().contentType());
+        assertEquals("tag", request.tag());
+    }
+
+    private static String bodyOf(final RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.CacheControl;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    private static final String URL = "http://cache.test/status";
+    private static final String STATUS_PAGE = "<table>CNF</table>";
+    private static final MediaType FORM = MediaType.parse("application/x-www-form-urlencoded");
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final long TTL_MS = 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ResponseCache cache = new ResponseCache();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder();
+        cache.setTtl("cache.test", TTL_MS, ResponseCache.HTML);
+        cache.open(directory, 1024 * 1024);
+    }
+
+    @Test
+    public void testRepeatedRequestIsAnsweredFromCache() throws IOException {
+        FakeChain chain = new FakeChain(200, STATUS_PAGE);
+
+        chain.call(cache, post("pnr=1234567890"));
+        String body = chain.call(cache, post("pnr=1234567890")).body().string();
+
+        assertEquals(STATUS_PAGE, body);
+        assertEquals(1, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testExpiredEntryGoesToNetwork() throws IOException {
+        FakeChain chain = new FakeChain(200, STATUS_PAGE);
+
+        chain.call(cache, post("pnr=1234567890"));
+        age(TTL_MS);
+        chain.call(cache, post("pnr=1234567890"));
+
+        assertEquals(2, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testEntriesAreKeyedByRequestBody() throws IOException {
+        FakeChain chain = new FakeChain(200, STATUS_PAGE);
+
+        chain.call(cache, post("pnr=1234567890"));
+        chain.call(cache, post("pnr=0987654321"));
+        chain.call(cache, post("pnr=1234567890"));
+
+        assertEquals(2, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testOtherMediaTypeIsNotCached() throws IOException {
+        FakeChain chain = new FakeChain(200, JSON, "{\"error\":\"captcha\"}");
+
+        chain.call(cache, post("pnr=1234567890"));
+        String body = chain.call(cache, post("pnr=1234567890")).body().string();
+
+        assertEquals("{\"error\":\"captcha\"}", body);
+        assertEquals(2, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testErrorCodeIsNotCached() throws IOException {
+        FakeChain chain = new FakeChain(503, STATUS_PAGE);
+
+        chain.call(cache, post("pnr=1234567890"));
+        chain.call(cache, post("pnr=1234567890"));
+
+        assertEquals(2, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testNoStoreRequestIsNotBuffered() throws IOException {
+        FakeChain chain = new FakeChain(200, STATUS_PAGE);
+        Request request = post("pnr=1234567890").newBuilder()
+                .cacheControl(new CacheControl.Builder().noStore().build())
+                .build();
+
+        Response response = chain.call(cache, request);
+
+        assertEquals(0, directory.listFiles().length);
+        assertEquals(STATUS_PAGE, response.body().string());
+        chain.call(cache, post("pnr=1234567890"));
+        assertEquals(2, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testOldestEntryIsEvicted() throws IOException {
+        // Room for one entry only
+        cache.open(directory, STATUS_PAGE.length() + 64);
+        FakeChain chain = new FakeChain(200, STATUS_PAGE);
+
+        chain.call(cache, post("pnr=1234567890"));
+        age(1000);
+        chain.call(cache, post("pnr=0987654321"));
+        chain.call(cache, post("pnr=0987654321"));
+        chain.call(cache, post("pnr=1234567890"));
+
+        assertEquals(3, chain.getNetworkCalls());
+    }
+
+    private static Request post(final String body) {
+        return new Request.Builder()
+                .url(URL)
+                .post(RequestBody.create(FORM, body))
+                .build();
+    }
+
+    /**
+     * Makes the entries in the cache older
+     */
+    private void age(final long ms) {
+        for (File file : directory.listFiles()) {
+            assertTrue(file.setLastModified(file.lastModified() - ms));
+        }
+    }
+}
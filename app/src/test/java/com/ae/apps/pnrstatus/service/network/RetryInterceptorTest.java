@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.network;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RetryInterceptorTest {
+
+    private static final String URL = "http://retry.test/status";
+    private static final MediaType FORM = MediaType.parse("application/x-www-form-urlencoded");
+
+    /**
+     * Four attempts without a noticeable wait between them
+     */
+    private static final RetryPolicy POLICY = new RetryPolicy(4, 1, 1, false);
+
+    @Test
+    public void testBackoffStaysWithinTheGrowingCap() {
+        RetryPolicy policy = new RetryPolicy(8, 100, 1000, false);
+        Random random = new Random(42);
+        long[] caps = {100, 200, 400, 800, 1000, 1000};
+
+        for (int retry = 1; retry <= caps.length; retry++) {
+            long longest = 0;
+            for (int i = 0; i < 1000; i++) {
+                long backoff = policy.getBackoffMs(retry, random);
+                assertTrue(backoff >= 0 && backoff < caps[retry - 1]);
+                longest = Math.max(longest, backoff);
+            }
+            // Full jitter spreads the delays over the whole range
+            assertTrue(longest >= caps[retry - 1] * 9 / 10);
+        }
+    }
+
+    @Test
+    public void testUnavailableGetIsRetried() throws IOException {
+        FakeChain chain = new FakeChain(503, "");
+
+        int code = chain.call(interceptor(new RetryBudget(0.2, 10)), get()).code();
+
+        assertEquals(503, code);
+        assertEquals(4, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testRetriesStopWhenTheBudgetRunsOut() throws IOException {
+        RetryInterceptor interceptor = interceptor(new RetryBudget(0, 2));
+        FakeChain chain = new FakeChain(503, "");
+
+        chain.call(interceptor, get());
+        assertEquals(3, chain.getNetworkCalls());
+
+        chain.call(interceptor, get());
+        assertEquals(4, chain.getNetworkCalls());
+    }
+
+    @Test
+    public void testSentPostIsNotRetried() {
+        FakeChain chain = new FakeChain(new SocketTimeoutException("timeout"));
+
+        try {
+            chain.call(interceptor(new RetryBudget(0.2, 10)), post());
+            fail();
+        } catch (IOException e) {
+            assertEquals(1, chain.getNetworkCalls());
+        }
+    }
+
+    @Test
+    public void testSentGetAndHeadAreRetried() {
+        for (Request request : new Request[]{get(), get().newBuilder().head().build()}) {
+            FakeChain chain = new FakeChain(new SocketTimeoutException("timeout"));
+            try {
+                chain.call(interceptor(new RetryBudget(0.2, 10)), request);
+                fail();
+            } catch (IOException e) {
+                assertEquals(request.method(), 4, chain.getNetworkCalls());
+            }
+        }
+    }
+
+    @Test
+    public void testPostThatNeverReachedTheServerIsRetried() {
+        FakeChain chain = new FakeChain(new ConnectException("refused"));
+
+        try {
+            chain.call(interceptor(new RetryBudget(0.2, 10)), post());
+            fail();
+        } catch (IOException e) {
+            assertEquals(4, chain.getNetworkCalls());
+        }
+    }
+
+    @Test
+    public void testCancellationStopsTheWaitForARetry() throws InterruptedException {
+        final RetryInterceptor interceptor = new RetryInterceptor(
+                new RetryPolicy(2, TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(1), false),
+                new RetryBudget(0.2, 10));
+        final FakeChain chain = new FakeChain(503, "");
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        Thread lookup = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    chain.call(interceptor, get());
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            }
+        });
+
+        lookup.start();
+        // Give the lookup time to get to the wait before the retry
+        Thread.sleep(100);
+        lookup.interrupt();
+        lookup.join(1000);
+
+        assertFalse(lookup.isAlive());
+        assertTrue(failure.get() instanceof InterruptedIOException);
+        assertEquals(1, chain.getNetworkCalls());
+    }
+
+    private static RetryInterceptor interceptor(final RetryBudget budget) {
+        return new RetryInterceptor(POLICY, budget);
+    }
+
+    private static Request get() {
+        return new Request.Builder()
+                .url(URL)
+                .build();
+    }
+
+    private static Request post() {
+        return new Request.Builder()
+                .url(URL)
+                .post(RequestBody.create(FORM, "pnr=1234567890"))
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveStatusServiceTest {
+
+    @Test
+    public void testPicksTheFastestProvider() {
+        IStatusService slow = provider("AdaptiveTest-Slow");
+        IStatusService fast = provider("AdaptiveTest-Fast");
+        record("AdaptiveTest-Slow", 3000, 0);
+        record("AdaptiveTest-Fast", 500, 0);
+
+        AdaptiveStatusService service = newService(Arrays.asList(slow, fast), 0);
+
+        assertSame(fast, service.selectProvider());
+    }
+
+    @Test
+    public void testFailuresRaiseTheExpectedTime() {
+        IStatusService reliable = provider("AdaptiveTest-Reliable");
+        IStatusService failing = provider("AdaptiveTest-Failing");
+        record("AdaptiveTest-Reliable", 1500, 0);
+        record("AdaptiveTest-Failing", 500, 10);
+
+        AdaptiveStatusService service = newService(Arrays.asList(failing, reliable), 0);
+
+        assertSame(reliable, service.selectProvider());
+    }
+
+    @Test
+    public void testExploresTheOtherProviders() {
+        IStatusService best = provider("AdaptiveTest-Best");
+        IStatusService other = provider("AdaptiveTest-Other");
+        record("AdaptiveTest-Best", 500, 0);
+        record("AdaptiveTest-Other", 3000, 0);
+
+        AdaptiveStatusService service = newService(Arrays.asList(best, other), 1.0);
+
+        assertSame(other, service.selectProvider());
+    }
+
+    private static AdaptiveStatusService newService(final List<IStatusService> providers,
+                                                    final double explorationRate) {
+        return new AdaptiveStatusService(providers, explorationRate, new Random(1));
+    }
+
+    private static void record(final String serviceName, final long latencyMs, final int failures) {
+        ProviderStats stats = ProviderStats.forService(serviceName);
+        for (int i = 0; i < 10; i++) {
+            stats.recordSuccess(latencyMs);
+        }
+        for (int i = 0; i < failures; i++) {
+            stats.recordFailure();
+        }
+    }
+
+    private static IStatusService provider(final String serviceName) {
+        return FakeStatusService.succeeding(serviceName);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 1000;
+
+    private long currentTime;
+
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        currentTime = 0;
+        breaker = new CircuitBreaker(4, 4, 0.5, OPEN_DURATION_MS, 2) {
+            @Override
+            protected long now() {
+                return currentTime;
+            }
+        };
+    }
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        fail(3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testOpensAtFailureRate() {
+        succeed(2);
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        fail(1);
+        succeed(3);
+        succeed(1);
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenAllowsLimitedProbes() {
+        fail(4);
+        currentTime += OPEN_DURATION_MS;
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testSuccessfulProbesCloseTheCircuit() {
+        fail(4);
+        currentTime += OPEN_DURATION_MS;
+
+        succeed(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testFailedProbeOpensTheCircuitAgain() {
+        fail(4);
+        currentTime += OPEN_DURATION_MS;
+
+        succeed(1);
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        currentTime += OPEN_DURATION_MS - 1;
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    @Test
+    public void testIgnoredProbeReleasesItsSlot() {
+        fail(4);
+        currentTime += OPEN_DURATION_MS;
+        breaker.tryAcquire();
+        breaker.tryAcquire();
+
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testCancelledLookupsAreNotFailures() {
+        CircuitBreakerStatusService service = new CircuitBreakerStatusService(
+                FakeStatusService.failing("CircuitBreakerTest", StatusException.ErrorCodes.CANCELLED), breaker);
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                service.getResponse("1234567890");
+                org.junit.Assert.fail();
+            } catch (StatusException e) {
+                assertEquals(StatusException.ErrorCodes.CANCELLED, e.getErrorCode());
+            }
+            try {
+                service.getResponseAsync("1234567890").getStatus();
+                org.junit.Assert.fail();
+            } catch (StatusException e) {
+                assertEquals(StatusException.ErrorCodes.CANCELLED, e.getErrorCode());
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void succeed(int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+        }
+    }
+
+    private void fail(int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+}
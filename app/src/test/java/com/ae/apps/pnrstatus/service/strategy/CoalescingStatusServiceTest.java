@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CoalescingStatusServiceTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    public void testConcurrentLookupsShareOneResult() throws Exception {
+        FakeStatusService provider = new FakeStatusService("CoalescingTest-Shared") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                awaitRelease();
+                return status("CoalescingTest-Shared");
+            }
+        };
+        CoalescingStatusService service = new CoalescingStatusService(provider);
+
+        StatusFuture first = service.getResponseAsync(PNR_NUMBER);
+        StatusFuture second = service.getResponseAsync(PNR_NUMBER);
+        release.countDown();
+
+        assertSame(first.get(1, TimeUnit.SECONDS), second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, provider.getCallCount());
+    }
+
+    @Test
+    public void testFailureOfTheLookupIsShared() throws Exception {
+        FakeStatusService provider = new FakeStatusService("CoalescingTest-Failing") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                awaitRelease();
+                throw new StatusException("failed", ErrorCodes.URL_ERROR);
+            }
+        };
+        CoalescingStatusService service = new CoalescingStatusService(provider);
+
+        StatusFuture first = service.getResponseAsync(PNR_NUMBER);
+        StatusFuture second = service.getResponseAsync(PNR_NUMBER);
+        release.countDown();
+
+        assertFailure(ErrorCodes.URL_ERROR, first);
+        assertFailure(ErrorCodes.URL_ERROR, second);
+        assertEquals(1, provider.getCallCount());
+    }
+
+    @Test
+    public void testCallerCancellingDoesNotCancelTheOthers() throws Exception {
+        FakeStatusService provider = new FakeStatusService("CoalescingTest-CallerCancels") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                awaitRelease();
+                return status("CoalescingTest-CallerCancels");
+            }
+        };
+        CoalescingStatusService service = new CoalescingStatusService(provider);
+
+        StatusFuture first = service.getResponseAsync(PNR_NUMBER);
+        StatusFuture second = service.getResponseAsync(PNR_NUMBER);
+        first.cancel(true);
+        release.countDown();
+
+        assertEquals("CoalescingTest-CallerCancels", second.get(1, TimeUnit.SECONDS).getTrainName());
+        assertEquals(1, provider.getCallCount());
+    }
+
+    @Test
+    public void testLookupIsCancelledOnceEveryCallerCancels() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        FakeStatusService provider = new FakeStatusService("CoalescingTest-AllCancel") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                if (1 == getCallCount()) {
+                    started.countDown();
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw new StatusException("interrupted", ErrorCodes.CANCELLED);
+                    }
+                }
+                return status("CoalescingTest-AllCancel");
+            }
+        };
+        CoalescingStatusService service = new CoalescingStatusService(provider);
+
+        StatusFuture first = service.getResponseAsync(PNR_NUMBER);
+        StatusFuture second = service.getResponseAsync(PNR_NUMBER);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        first.cancel(true);
+        assertFalse(interrupted.await(100, TimeUnit.MILLISECONDS));
+        second.cancel(true);
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        // A later caller starts a lookup of its own
+        StatusFuture third = service.getResponseAsync(PNR_NUMBER);
+        assertEquals("CoalescingTest-AllCancel", third.get(1, TimeUnit.SECONDS).getTrainName());
+        assertEquals(2, provider.getCallCount());
+    }
+
+    @Test
+    public void testCancelledLookupIsRunAgainForTheOthers() throws Exception {
+        FakeStatusService provider = new FakeStatusService("CoalescingTest-Cancelled") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                if (1 == getCallCount()) {
+                    awaitRelease();
+                    throw new StatusException("cancelled", ErrorCodes.CANCELLED);
+                }
+                return status("CoalescingTest-Cancelled");
+            }
+        };
+        CoalescingStatusService service = new CoalescingStatusService(provider);
+
+        StatusFuture first = service.getResponseAsync(PNR_NUMBER);
+        StatusFuture second = service.getResponseAsync(PNR_NUMBER);
+        release.countDown();
+
+        assertEquals("CoalescingTest-Cancelled", first.get(1, TimeUnit.SECONDS).getTrainName());
+        assertEquals("CoalescingTest-Cancelled", second.get(1, TimeUnit.SECONDS).getTrainName());
+        // Run again once, shared by both
+        assertEquals(2, provider.getCallCount());
+    }
+
+    @Test
+    public void testFollowerRunsAgainWhenTheLeaderIsInterrupted() throws Exception {
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+        final FakeStatusService provider = new FakeStatusService("CoalescingTest-Interrupted") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                if (1 == getCallCount()) {
+                    leaderStarted.countDown();
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new StatusException("interrupted", ErrorCodes.NETWORK_ERROR);
+                    }
+                }
+                return status("CoalescingTest-Interrupted");
+            }
+        };
+        final CoalescingStatusService service = new CoalescingStatusService(provider);
+
+        final AtomicReference<StatusException> leaderError = new AtomicReference<StatusException>();
+        Thread leader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    service.getResponse(PNR_NUMBER);
+                } catch (StatusException e) {
+                    leaderError.set(e);
+                }
+            }
+        });
+        leader.start();
+        assertTrue(leaderStarted.await(1, TimeUnit.SECONDS));
+
+        final AtomicReference<PNRStatusVo> followerStatus = new AtomicReference<PNRStatusVo>();
+        Thread follower = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    followerStatus.set(service.getResponse(PNR_NUMBER));
+                } catch (StatusException e) {
+                    // Left empty, checked below
+                }
+            }
+        });
+        follower.start();
+        // Give the follower time to wait for the leader
+        Thread.sleep(100);
+        leader.interrupt();
+        leader.join(1000);
+        follower.join(1000);
+
+        assertEquals(ErrorCodes.CANCELLED, leaderError.get().getErrorCode());
+        assertEquals("CoalescingTest-Interrupted", followerStatus.get().getTrainName());
+        assertEquals(2, provider.getCallCount());
+    }
+
+    private void awaitRelease() throws StatusException {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            throw new StatusException("interrupted", ErrorCodes.CANCELLED);
+        }
+    }
+
+    private static void assertFailure(final ErrorCodes errorCode, final StatusFuture lookup) throws Exception {
+        try {
+            lookup.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(errorCode, ((StatusException) e.getCause()).getErrorCode());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FallbackStatusServiceTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void testMovesOnAfterNetworkError() throws Exception {
+        FallbackStatusService service = new FallbackStatusService(Arrays.asList(
+                failing("first", ErrorCodes.URL_ERROR),
+                succeeding("second")), 1000);
+
+        PNRStatusVo statusVo = service.getResponse(PNR_NUMBER);
+
+        assertEquals("second", statusVo.getTrainName());
+        assertEquals(Arrays.asList("first", "second"), calls);
+    }
+
+    @Test
+    public void testStopsAtParseError() {
+        FallbackStatusService service = new FallbackStatusService(Arrays.asList(
+                failing("first", ErrorCodes.PARSE_ERROR),
+                succeeding("second")), 1000);
+
+        try {
+            service.getResponse(PNR_NUMBER);
+            fail();
+        } catch (StatusException e) {
+            assertEquals(ErrorCodes.PARSE_ERROR, e.getErrorCode());
+        }
+        assertEquals(Arrays.asList("first"), calls);
+    }
+
+    @Test
+    public void testSharesOneDeadline() {
+        FallbackStatusService service = new FallbackStatusService(Arrays.asList(
+                slowFailing("first", 300),
+                slowFailing("second", 300),
+                succeeding("third")), 400);
+
+        try {
+            service.getResponse(PNR_NUMBER);
+            fail();
+        } catch (StatusException e) {
+            assertEquals(ErrorCodes.TIMEOUT, e.getErrorCode());
+        }
+        assertFalse(calls.contains("third"));
+    }
+
+    @Test
+    public void testMoreLookupsThanThreadsAllComplete() throws Exception {
+        FallbackStatusService service = new FallbackStatusService(Arrays.asList(
+                slowFailing("busy", 100),
+                succeeding("spare")), 5000);
+
+        // More lookups than there are threads in the lookup pool
+        List<StatusFuture> lookups = new ArrayList<StatusFuture>();
+        for (int i = 0; i < 20; i++) {
+            lookups.add(service.getResponseAsync(PNR_NUMBER));
+        }
+
+        for (StatusFuture lookup : lookups) {
+            assertEquals("spare", lookup.get(10, TimeUnit.SECONDS).getTrainName());
+        }
+    }
+
+    private IStatusService failing(final String name, final ErrorCodes errorCode) {
+        return new FakeStatusService(name) {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                calls.add(name);
+                throw new StatusException(name + " failed", errorCode);
+            }
+        };
+    }
+
+    private IStatusService succeeding(final String name) {
+        return new FakeStatusService(name) {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) {
+                calls.add(name);
+                return status(name);
+            }
+        };
+    }
+
+    private IStatusService slowFailing(final String name, final long delayMs) {
+        return new FakeStatusService(name) {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                calls.add(name);
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    throw new StatusException("interrupted", ErrorCodes.NETWORK_ERROR);
+                }
+                throw new StatusException(name + " failed", ErrorCodes.URL_ERROR);
+            }
+        };
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.service.StatusFuture;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class HedgedStatusServiceTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+
+    /**
+     * More lookups than there are threads in the lookup pool
+     */
+    private static final int LOOKUP_COUNT = 20;
+
+    @Test
+    public void testHedgesAfterTheUsualLatency() throws Exception {
+        IStatusService primary = slow("HedgedTest-SlowPrimary", 1000);
+        recordLatency(primary, 100);
+        final AtomicLong hedgedAt = new AtomicLong();
+        IStatusService alternate = new FakeStatusService("HedgedTest-Alternate") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) {
+                hedgedAt.set(System.nanoTime());
+                return status("HedgedTest-Alternate");
+            }
+        };
+
+        long start = System.nanoTime();
+        PNRStatusVo statusVo = new HedgedStatusService(primary, Collections.singletonList(alternate))
+                .getResponse(PNR_NUMBER);
+
+        assertEquals("HedgedTest-Alternate", statusVo.getTrainName());
+        assertEquals(PNR_NUMBER, statusVo.getPnrNumber());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(hedgedAt.get() - start) >= 90);
+    }
+
+    @Test
+    public void testFirstStatusWinsAndTheOtherIsCancelled() throws Exception {
+        final CountDownLatch primaryCancelled = new CountDownLatch(1);
+        IStatusService primary = new FakeStatusService("HedgedTest-CancelledPrimary") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                    throw new StatusException("interrupted", ErrorCodes.CANCELLED);
+                }
+                return status("HedgedTest-CancelledPrimary");
+            }
+        };
+        recordLatency(primary, 50);
+        FakeStatusService alternate = FakeStatusService.succeeding("HedgedTest-Winner");
+
+        PNRStatusVo statusVo = new HedgedStatusService(primary, Collections.<IStatusService>singletonList(alternate))
+                .getResponse(PNR_NUMBER);
+
+        assertEquals("HedgedTest-Winner", statusVo.getTrainName());
+        assertTrue(primaryCancelled.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testHedgesAtOnceWhenThePrimaryFails() throws Exception {
+        // Without latencies recorded the hedge delay is several seconds
+        IStatusService primary = FakeStatusService.failing("HedgedTest-FailingPrimary", ErrorCodes.URL_ERROR);
+        FakeStatusService alternate = FakeStatusService.succeeding("HedgedTest-Rescuer");
+
+        StatusFuture lookup = new HedgedStatusService(primary, Collections.<IStatusService>singletonList(alternate))
+                .getResponseAsync(PNR_NUMBER);
+
+        assertEquals("HedgedTest-Rescuer", lookup.get(1, TimeUnit.SECONDS).getTrainName());
+    }
+
+    @Test
+    public void testFailsWhenBothLookupsFail() {
+        FakeStatusService primary = FakeStatusService.failing("HedgedTest-FirstFailure", ErrorCodes.URL_ERROR);
+        FakeStatusService alternate = FakeStatusService.failing("HedgedTest-SecondFailure", ErrorCodes.TIMEOUT);
+
+        try {
+            new HedgedStatusService(primary, Collections.<IStatusService>singletonList(alternate))
+                    .getResponse(PNR_NUMBER);
+            fail();
+        } catch (StatusException e) {
+            // The error of the primary is reported
+            assertEquals(ErrorCodes.URL_ERROR, e.getErrorCode());
+        }
+        assertEquals(1, primary.getCallCount());
+        assertEquals(1, alternate.getCallCount());
+    }
+
+    @Test
+    public void testMoreLookupsThanThreadsAllComplete() throws Exception {
+        IStatusService primary = slow("HedgedTest-BusyPrimary", 200);
+        recordLatency(primary, 50);
+        HedgedStatusService service = new HedgedStatusService(primary,
+                Collections.<IStatusService>singletonList(FakeStatusService.succeeding("HedgedTest-BusyAlternate")));
+
+        List<StatusFuture> lookups = new ArrayList<StatusFuture>();
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            lookups.add(service.getResponseAsync(PNR_NUMBER));
+        }
+
+        for (StatusFuture lookup : lookups) {
+            assertNotNull(lookup.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * A provider that answers after the delay, or fails when it is cancelled before that
+     */
+    static FakeStatusService slow(final String name, final long delayMs) {
+        return new FakeStatusService(name) {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    throw new StatusException("interrupted", ErrorCodes.CANCELLED);
+                }
+                return status(name);
+            }
+        };
+    }
+
+    /**
+     * Sets the usual latency of the provider, which is the hedge delay when it is the primary
+     */
+    private static void recordLatency(final IStatusService service, final long latencyMs) {
+        ProviderStats stats = ProviderStats.forService(service.getServiceName());
+        for (int i = 0; i < 5; i++) {
+            stats.recordSuccess(latencyMs);
+        }
+    }
+}
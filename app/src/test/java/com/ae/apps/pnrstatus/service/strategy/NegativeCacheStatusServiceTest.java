@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NegativeCacheStatusServiceTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+
+    private FakeStatusService provider;
+    private long now = 1000;
+
+    @Test
+    public void testRepeatsParseErrorWithoutLookup() {
+        NegativeCacheStatusService service = newService(ErrorCodes.PARSE_ERROR);
+
+        assertFails(service, ErrorCodes.PARSE_ERROR);
+        assertFails(service, ErrorCodes.PARSE_ERROR);
+
+        assertEquals(1, provider.getCallCount());
+    }
+
+    @Test
+    public void testLooksUpAgainOnceExpired() {
+        NegativeCacheStatusService service = newService(ErrorCodes.EMPTY_RESPONSE);
+
+        assertFails(service, ErrorCodes.EMPTY_RESPONSE);
+        now += NegativeCacheStatusService.EMPTY_RESPONSE_TTL_MS;
+        assertFails(service, ErrorCodes.EMPTY_RESPONSE);
+
+        assertEquals(2, provider.getCallCount());
+    }
+
+    @Test
+    public void testNetworkErrorIsNotRemembered() {
+        NegativeCacheStatusService service = newService(ErrorCodes.NETWORK_ERROR);
+
+        assertFails(service, ErrorCodes.NETWORK_ERROR);
+        assertFails(service, ErrorCodes.NETWORK_ERROR);
+
+        assertEquals(2, provider.getCallCount());
+    }
+
+    private static void assertFails(final NegativeCacheStatusService service, final ErrorCodes errorCode) {
+        try {
+            service.getResponse(PNR_NUMBER);
+            fail();
+        } catch (StatusException e) {
+            assertEquals(errorCode, e.getErrorCode());
+        }
+    }
+
+    private NegativeCacheStatusService newService(final ErrorCodes errorCode) {
+        provider = FakeStatusService.failing("NegativeCacheTest", errorCode);
+        return new NegativeCacheStatusService(provider) {
+            @Override
+            protected long now() {
+                return now;
+            }
+        };
+    }
+}
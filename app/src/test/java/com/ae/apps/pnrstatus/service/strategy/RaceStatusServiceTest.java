@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.exceptions.StatusException.ErrorCodes;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+import com.ae.apps.pnrstatus.service.IStatusService;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RaceStatusServiceTest {
+
+    private static final String PNR_NUMBER = "1234567890";
+
+    @Test
+    public void testFirstStatusWinsAndTheOthersAreCancelled() throws Exception {
+        final CountDownLatch slowStarted = new CountDownLatch(1);
+        final CountDownLatch slowInterrupted = new CountDownLatch(1);
+        IStatusService slow = new FakeStatusService("RaceTest-Slow") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) throws StatusException {
+                slowStarted.countDown();
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    slowInterrupted.countDown();
+                    throw new StatusException("interrupted", ErrorCodes.NETWORK_ERROR);
+                }
+                return status("RaceTest-Slow");
+            }
+        };
+        IStatusService fast = new FakeStatusService("RaceTest-Fast") {
+            @Override
+            protected PNRStatusVo lookUp(String pnrNumber) {
+                // Win only once the slow lookup is running, a queued one is cancelled without an interrupt
+                try {
+                    slowStarted.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return status("RaceTest-Fast");
+            }
+        };
+
+        PNRStatusVo statusVo = new RaceStatusService(Arrays.asList(slow, fast)).getResponse(PNR_NUMBER);
+
+        assertEquals("RaceTest-Fast", statusVo.getTrainName());
+        assertEquals(PNR_NUMBER, statusVo.getPnrNumber());
+        assertTrue(slowInterrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailsWhenAllProvidersFail() {
+        IStatusService first = FakeStatusService.failing("RaceTest-First", ErrorCodes.URL_ERROR);
+        IStatusService second = FakeStatusService.failing("RaceTest-Second", ErrorCodes.URL_ERROR);
+
+        try {
+            new RaceStatusService(Arrays.asList(first, second)).getResponse(PNR_NUMBER);
+            fail();
+        } catch (StatusException e) {
+            assertEquals(ErrorCodes.URL_ERROR, e.getErrorCode());
+        }
+    }
+}
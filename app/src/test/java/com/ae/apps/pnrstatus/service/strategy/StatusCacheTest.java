@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.exceptions.StatusException;
+import com.ae.apps.pnrstatus.service.FakeStatusService;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StatusCacheTest {
+
+    private static final long TTL_MS = 1000;
+
+    private final FakeStatusService provider = FakeStatusService.succeeding("StatusCacheTest");
+
+    private long time = 5000;
+
+    private final StatusCache cache = new StatusCache(provider, new StatusTtlPolicy() {
+        @Override
+        public long getTtlMs(PNRStatusVo statusVo, long now) {
+            return TTL_MS;
+        }
+    }) {
+        @Override
+        protected long now() {
+            return time;
+        }
+    };
+
+    @After
+    public void tearDown() {
+        StatusCache.setStore(null);
+    }
+
+    @Test
+    public void testRepeatedLookupWithinTtlIsAnsweredFromCache() throws StatusException {
+        cache.getResponse("1100000001");
+        time += TTL_MS - 1;
+        PNRStatusVo statusVo = cache.getResponse("1100000001");
+
+        assertEquals("StatusCacheTest", statusVo.getTrainName());
+        assertEquals(1, provider.getCallCount());
+    }
+
+    @Test
+    public void testLookupAfterTtlGoesToProvider() throws StatusException {
+        cache.getResponse("1100000002");
+        time += TTL_MS;
+        cache.getResponse("1100000002");
+
+        assertEquals(2, provider.getCallCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatusIsEvicted() throws StatusException {
+        // Fill the memory cache, then use the first status again so that the second is the oldest one
+        for (int i = 0; i < 64; i++) {
+            cache.getResponse(String.valueOf(1200000000 + i));
+        }
+        cache.getResponse("1200000000");
+        cache.getResponse("1200000064");
+        assertEquals(65, provider.getCallCount());
+
+        cache.getResponse("1200000000");
+        assertEquals(65, provider.getCallCount());
+        cache.getResponse("1200000001");
+        assertEquals(66, provider.getCallCount());
+    }
+
+    @Test
+    public void testStoreAnswersMissInMemory() throws StatusException {
+        MapStore store = new MapStore();
+        store.save("1100000003", new StatusCache.Entry(FakeStatusService.status("Stored"), time, time + TTL_MS));
+        StatusCache.setStore(store);
+
+        PNRStatusVo statusVo = cache.getResponse("1100000003");
+
+        assertEquals("Stored", statusVo.getTrainName());
+        assertEquals(0, provider.getCallCount());
+    }
+
+    @Test
+    public void testInvalidateForgetsStatus() throws Exception {
+        MapStore store = new MapStore();
+        StatusCache.setStore(store);
+        cache.getResponse("1100000004");
+        assertNotNull(store.load("1100000004"));
+
+        StatusCache.invalidate("1100000004");
+
+        assertTrue(store.removed.await(1, TimeUnit.SECONDS));
+        assertNull(store.load("1100000004"));
+        cache.getResponse("1100000004");
+        assertEquals(2, provider.getCallCount());
+    }
+
+    private static class MapStore implements StatusCache.Store {
+        final Map<String, StatusCache.Entry> entries = new ConcurrentHashMap<String, StatusCache.Entry>();
+        final CountDownLatch removed = new CountDownLatch(1);
+
+        @Override
+        public StatusCache.Entry load(String pnrNumber) {
+            return entries.get(pnrNumber);
+        }
+
+        @Override
+        public void save(String pnrNumber, StatusCache.Entry entry) {
+            entries.put(pnrNumber, entry);
+        }
+
+        @Override
+        public void remove(String pnrNumber) {
+            entries.remove(pnrNumber);
+            removed.countDown();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.ae.apps.pnrstatus.service.strategy;
+
+import com.ae.apps.pnrstatus.utils.PNRUtils;
+import com.ae.apps.pnrstatus.vo.PNRStatusVo;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StatusTtlPolicyTest {
+
+    private static final String JOURNEY_DATE = "15-8-2015";
+
+    private final StatusTtlPolicy mPolicy = new StatusTtlPolicy();
+    private final long mJourneyTime = PNRUtils.getJourneyTimeStamp(JOURNEY_DATE);
+
+    @Test
+    public void testPastJourneyNeverExpires() {
+        PNRStatusVo statusVo = status("W/L 5", "CHART NOT PREPARED");
+        long now = mJourneyTime + TimeUnit.DAYS.toMillis(2);
+
+        assertEquals(StatusTtlPolicy.NEVER_EXPIRES, mPolicy.getTtlMs(statusVo, now));
+    }
+
+    @Test
+    public void testConfirmedWithChartPrepared() {
+        PNRStatusVo statusVo = status("CNF", "CHART PREPARED");
+        long now = mJourneyTime - TimeUnit.HOURS.toMillis(2);
+
+        assertEquals(StatusTtlPolicy.CHART_PREPARED_TTL_MS, mPolicy.getTtlMs(statusVo, now));
+    }
+
+    @Test
+    public void testWaitlistedShortensNearTheJourney() {
+        PNRStatusVo statusVo = status("W/L 12", "CHART NOT PREPARED");
+
+        assertEquals(StatusTtlPolicy.WAITING_TTL_MS,
+                mPolicy.getTtlMs(statusVo, mJourneyTime - TimeUnit.DAYS.toMillis(10)));
+        assertEquals(StatusTtlPolicy.WAITING_WITHIN_DAYS_TTL_MS,
+                mPolicy.getTtlMs(statusVo, mJourneyTime - TimeUnit.DAYS.toMillis(2)));
+        assertEquals(StatusTtlPolicy.WAITING_WITHIN_DAY_TTL_MS,
+                mPolicy.getTtlMs(statusVo, mJourneyTime - TimeUnit.HOURS.toMillis(6)));
+    }
+
+    @Test
+    public void testUnknownJourneyDate() {
+        PNRStatusVo statusVo = status("RAC 3", null);
+        statusVo.setTrainJourneyDate("soon");
+
+        assertEquals(StatusTtlPolicy.DEFAULT_TTL_MS, mPolicy.getTtlMs(statusVo, System.currentTimeMillis()));
+    }
+
+    private static PNRStatusVo status(final String currentStatus, final String chartStatus) {
+        PNRStatusVo statusVo = new PNRStatusVo();
+        statusVo.setCurrentStatus(currentStatus);
+        statusVo.setChartStatus(chartStatus);
+        statusVo.setTrainJourneyDate(JOURNEY_DATE);
+        return statusVo;
+    }
+}
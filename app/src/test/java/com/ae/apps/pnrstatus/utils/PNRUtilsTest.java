@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Midhun Harikumar
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.ae.apps.pnrstatus.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PNRUtilsTest {
+
+    private static final String TRAIN_PNR_HTML = "<html><body><div id=\"pd\"><table class=\"table table-striped table-bordered\">" +
+            "<tr><td colspan=\"4\">Journey Details</td></tr>" +
+            "<tr><td>Train No</td><td>Train Name</td><td>Boarding Date<br>(DD-MM-YYYY)</td><td>Class</td></tr>" +
+            "<tr><td>18118</td><td>RAJYA RANI EXP</td><td>11-03-2019</td><td>3A</td></tr>" +
+            "<tr><td>From</td><td>To</td><td>Reserved Upto</td><td>Boarding Point</td></tr>" +
+            "<tr><td>BBS</td><td>ROU</td><td>ROU</td><td>BBS</td></tr></table>" +
+            "<table class=\"table table-striped table-bordered\"><tr><td>S.No.</td>" +
+            "<td>*Current Status<br>(Coach No , Berth No.)</td><td>Quota</td></tr>" +
+            "<tr><td><strong>Passenger 1</strong></td><td>CNF/B1/37</td><td>GN</td></tr>" +
+            "<tr><td>Charting Status</td><td colspan=\"3\">CHART PREPARED</td></tr></table>" +
+            "</div><div>footer</div></body></html>";
+
+    private static final String INDIAN_RAIL_HTML = "<HTML><BODY><TABLE><TR><TD class=\"table_border_both\">*17229</TD>" +
+            "<TD class=\"table_border_both\">SABARI EXPRESS </TD><TD class=\"table_border_both\"> 6- 3-2014</TD>" +
+            "<TD class=\"table_border_both\">ERN </TD><TD class=\"table_border_both\">SC  </TD>" +
+            "<TD class=\"table_border_both\">SC  </TD><TD class=\"table_border_both\">ERN </TD>" +
+            "<TD class=\"table_border_both\"> SL</TD></TR></TABLE>" +
+            "<TABLE class=\"table_border\"><TR><TD class=\"table_border_both\"><B>Passenger 1</B></TD>" +
+            "<TD class=\"table_border_both\"><B>S10 ,  7,GN    </B></TD><TD class=\"table_border_both\"><B>   CNF  </B></TD></TR>" +
+            "<TR><TD class=\"heading_table_top\">Charting Status</TD>" +
+            "<TD colspan=\"3\" align=\"middle\" class=\"table_border_both\"> CHART NOT PREPARED </TD></TR></TABLE>" +
+            "<div>footer</div></BODY></HTML>";
+
+    @Test
+    public void testIndianRailStreamingParseMatchesStringParse() throws IOException {
+        List<String> expected = PNRUtils.parseIndianRailHtml(INDIAN_RAIL_HTML);
+        List<String> streamed = PNRUtils.parseIndianRailHtml(new ChunkedReader(INDIAN_RAIL_HTML, 7));
+
+        assertEquals(" CHART NOT PREPARED ", expected.get(expected.size() - 1));
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    public void testIndianRailStreamingParseStopsAfterChartingStatus() throws IOException {
+        ChunkedReader reader = new ChunkedReader(INDIAN_RAIL_HTML, 16);
+        PNRUtils.parseIndianRailHtml(reader);
+
+        assertTrue(reader.position < INDIAN_RAIL_HTML.length());
+    }
+
+    @Test
+    public void testStreamingParseMatchesStringParse() throws IOException {
+        List<String> expected = PNRUtils.parseTrainPnrStatusResponse(TRAIN_PNR_HTML);
+        List<String> streamed = PNRUtils.parseTrainPnrStatusResponse(new ChunkedReader(TRAIN_PNR_HTML, 7));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    public void testStreamingParseStopsAfterSection() throws IOException {
+        ChunkedReader reader = new ChunkedReader(TRAIN_PNR_HTML, 16);
+        PNRUtils.parseTrainPnrStatusResponse(reader);
+
+        assertTrue(reader.position < TRAIN_PNR_HTML.length());
+    }
+
+    @Test
+    public void testStreamingParseWithoutDataBlock() throws IOException {
+        List<String> elements = PNRUtils.parseTrainPnrStatusResponse(new StringReader("<html><body>Invalid PNR</body></html>"));
+
+        assertTrue(elements.isEmpty());
+    }
+
+    /**
+     * Hands out the content a few chars at a time, like a slow network would
+     */
+    private static class ChunkedReader extends Reader {
+        private final String content;
+        private final int chunkSize;
+        private int position;
+
+        ChunkedReader(String content, int chunkSize) {
+            this.content = content;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= content.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunkSize), content.length() - position);
+            content.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}